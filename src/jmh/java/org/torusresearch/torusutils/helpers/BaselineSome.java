@@ -0,0 +1,52 @@
+package org.torusresearch.torusutils.helpers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Some as it was before predicates were called once per arrival, when every arrival handed the predicate a clone of
+// all results so far. Kept unchanged apart from the name, with its Predicate nested, as the baseline for SomeBenchmark.
+public class BaselineSome<T>  {
+    public interface Predicate<T> {
+        CompletableFuture<T> call(String[] resultArr) throws PredicateFailedException;
+    }
+
+    private AtomicInteger finishedCount = new AtomicInteger(0);
+    private boolean resolved = false;
+    private String[] resultArr;
+
+    public CompletableFuture<T> getCompletableFuture() {
+        return completableFuture;
+    }
+
+    private CompletableFuture<T> completableFuture;
+
+    public BaselineSome(List<CompletableFuture<String>> promises, Predicate<T> predicate) {
+        resultArr = new String[promises.size()];
+        completableFuture = new CompletableFuture<>();
+        for (int i = 0; i < promises.size(); i++) {
+            int index = i;
+            promises.get(index).thenComposeAsync((response) -> {
+                resultArr[index] = response;
+                if (resolved) {
+                    return null;
+                }
+                try {
+                    T intermediateResult = predicate.call(resultArr.clone()).get();
+                    resolved = true;
+                    completableFuture.complete(intermediateResult);
+                } catch (Exception e) {
+                    // swallow exceptions due to threshold assumptions
+                }
+                return null;
+            }).exceptionally(e -> {
+                // swallow exceptions due to threshold assumptions
+                int count = finishedCount.incrementAndGet();
+                if (count == promises.size()) {
+                    completableFuture.completeExceptionally(new Exception("Unable to resolve enough promises"));
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.crypto.Sign;
+
+import java.math.BigInteger;
+import java.security.spec.ECFieldFp;
+import java.security.spec.EllipticCurve;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variable-base and fixed-base scalar multiplication, each ending in affine coordinates, against the BigInteger
+ * {@link BaselineECPointArithmetic} and web3j respectively.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ECPointArithmeticBenchmark {
+    private static final EllipticCurve secp256k1 = new EllipticCurve(new ECFieldFp(Secp256k1Field.P), BigInteger.ZERO, BigInteger.valueOf(7));
+
+    private BigInteger x;
+    private BigInteger y;
+    private BigInteger k;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        Secp256k1Point point = Secp256k1Generator.multiply(new BigInteger(256, random).mod(Secp256k1Scalar.N));
+        x = point.getAffineX();
+        y = point.getAffineY();
+        k = new BigInteger(256, random).mod(Secp256k1Scalar.N);
+    }
+
+    @Benchmark
+    public BigInteger baselineMultiply() {
+        return new BaselineECPointArithmetic(secp256k1, x, y, null).multiply(k).getX();
+    }
+
+    @Benchmark
+    public BigInteger multiply() {
+        return new ECPointArithmetic(secp256k1, x, y, null).multiply(k).getX();
+    }
+
+    @Benchmark
+    public BigInteger pointMultiply() {
+        return Secp256k1Point.fromAffine(x, y).multiply(k).getAffineX();
+    }
+
+    @Benchmark
+    public BigInteger web3jGeneratorMultiply() {
+        return Sign.publicKeyFromPrivate(k);
+    }
+
+    @Benchmark
+    public BigInteger generatorMultiply() {
+        return Secp256k1Generator.publicKeyFromPrivate(k);
+    }
+}
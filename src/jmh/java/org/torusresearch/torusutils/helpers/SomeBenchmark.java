@@ -0,0 +1,96 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One quorum round, the commitment phase's k + t of n responses, through {@link Some} and through the
+ * clone-per-arrival {@link BaselineSome}. Each predicate collects the results it has seen the way its Some expects:
+ * the baseline one rescans the cloned array on every arrival, the current one appends the new result. Run with
+ * {@code -prof gc} for the allocation per round, which includes the completions on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// with a single processor the common pool would start a thread per task
+@Fork(value = 1, jvmArgsAppend = "-Djava.util.concurrent.ForkJoinPool.common.parallelism=2")
+public class SomeBenchmark {
+    @Param({"5", "9", "13"})
+    private int nodes;
+
+    private int quorum;
+    private String[] responses;
+
+    @Setup
+    public void setup() {
+        int t = nodes / 4;
+        quorum = 3 * t + 1;
+        responses = new String[nodes];
+        for (int i = 0; i < nodes; i++) {
+            responses[i] = "{\"signature\":\"" + i + "\"}";
+        }
+    }
+
+    @Benchmark
+    public List<String> baselineSome() {
+        List<CompletableFuture<String>> promises = promises();
+        BaselineSome<List<String>> some = new BaselineSome<>(promises, resultArr -> {
+            List<String> results = new ArrayList<>();
+            for (String result : resultArr) {
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            if (results.size() < quorum) {
+                throw new PredicateFailedException("insufficient responses");
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+        return complete(promises, some.getCompletableFuture());
+    }
+
+    @Benchmark
+    public List<String> some() {
+        List<CompletableFuture<String>> promises = promises();
+        List<String> results = new ArrayList<>();
+        Some<String, List<String>> some = new Some<>(promises, new QuorumPolicy(quorum, nodes - quorum), (index, result) -> {
+            results.add(result);
+            if (results.size() < quorum) {
+                throw new PredicateFailedException("insufficient responses");
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+        return complete(promises, some.getCompletableFuture());
+    }
+
+    private List<CompletableFuture<String>> promises() {
+        List<CompletableFuture<String>> promises = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            promises.add(new CompletableFuture<>());
+        }
+        return promises;
+    }
+
+    private List<String> complete(List<CompletableFuture<String>> promises, CompletableFuture<List<String>> result) {
+        for (int i = 0; i < nodes; i++) {
+            promises.get(i).complete(responses[i]);
+        }
+        return result.join();
+    }
+}
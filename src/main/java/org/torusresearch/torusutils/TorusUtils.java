@@ -1,170 +1,156 @@
 package org.torusresearch.torusutils;
 
-import com.google.gson.Gson;
 import org.torusresearch.torusutils.apis.*;
 import org.torusresearch.torusutils.helpers.*;
 import org.torusresearch.torusutils.types.*;
 import org.web3j.crypto.ECKeyPair;
-import org.web3j.crypto.Hash;
 import org.web3j.crypto.Keys;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class TorusUtils {
 
-    private static BigInteger secp256k1N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+    private static volatile Executor recoveryExecutor = null;
+    private static volatile int recoveryParallelism = 0;
+    private static volatile EphemeralKeyPool ephemeralKeyPool = null;
+    private static volatile PublicAddressCache publicAddressCache = null;
 
     private TorusUtils() {
     }
 
+    /**
+     * Runs the search for the private key over subsets of the decrypted shares on up to {@code parallelism} tasks of
+     * the given executor, besides the thread that received the shares. This only matters when some nodes returned bad
+     * shares; with a null executor (the default) the search runs on that thread alone.
+     */
+    public static void setRecoveryExecutor(Executor executor, int parallelism) {
+        recoveryParallelism = parallelism;
+        recoveryExecutor = executor;
+    }
+
+    /**
+     * Draws the temporary key of each login from a pool of pregenerated key pairs. With a null pool (the default)
+     * each login generates its own. The caller owns the pool and closes it.
+     */
+    public static void setEphemeralKeyPool(EphemeralKeyPool pool) {
+        ephemeralKeyPool = pool;
+    }
+
+    /**
+     * Serves {@link #getPublicAddress} from a cache, so repeated and concurrent lookups of the same verifier id skip
+     * the request to every node. With a null cache (the default) every call queries the nodes.
+     */
+    public static void setPublicAddressCache(PublicAddressCache cache) {
+        publicAddressCache = cache;
+    }
+
 
-    private static CompletableFuture<RetrieveSharesResponse> retrieveShares(String[] endpoints, BigInteger[] indexes, String verifier, HashMap<String, Object> verifierParams, String idToken) throws InvalidAlgorithmParameterException, NoSuchAlgorithmException, NoSuchProviderException {
-        List<CompletableFuture<String>> promiseArr = new ArrayList<>();
+    public static CompletableFuture<RetrieveSharesResponse> retrieveShares(String[] endpoints, BigInteger[] indexes, String verifier, HashMap<String, Object> verifierParams, String idToken) throws InvalidAlgorithmParameterException, NoSuchAlgorithmException, NoSuchProviderException {
+        long timeoutMillis = APIUtils.getRequestTimeoutMillis();
+        return retrieveShares(endpoints, indexes, verifier, verifierParams, idToken, timeoutMillis, timeoutMillis);
+    }
+
+    /**
+     * Retrieves and combines the shares of the user's key, with separate request timeouts for the commitment phase and
+     * the share phase. A node that has not answered within its phase's timeout counts as failed.
+     */
+    public static CompletableFuture<RetrieveSharesResponse> retrieveShares(String[] endpoints, BigInteger[] indexes, String verifier, HashMap<String, Object> verifierParams, String idToken, long commitmentTimeoutMillis, long shareTimeoutMillis) throws InvalidAlgorithmParameterException, NoSuchAlgorithmException, NoSuchProviderException {
+        List<CompletableFuture<JsonRPCResponse<NodeSignature>>> promiseArr = new ArrayList<>();
         // generate temporary private and public key that is used to secure receive shares
-        ECKeyPair tmpKey = Keys.createEcKeyPair();
-        String pubKey = tmpKey.getPublicKey().toString(16);
-        String pubKeyX = pubKey.substring(0, pubKey.length() / 2);
-        String pubKeyY = pubKey.substring(pubKey.length() / 2);
+        EphemeralKeyPool pool = ephemeralKeyPool;
+        ECKeyPair tmpKey = pool != null ? pool.take() : Secp256k1Generator.createKeyPair();
+        byte[] pubKey = new byte[HexCodec.POINT_BYTES];
+        HexCodec.toBytes(tmpKey.getPublicKey(), pubKey, 0, HexCodec.POINT_BYTES);
+        String pubKeyX = HexCodec.encode(pubKey, 0, HexCodec.SCALAR_BYTES);
+        String pubKeyY = HexCodec.encode(pubKey, HexCodec.SCALAR_BYTES, HexCodec.SCALAR_BYTES);
         String tokenCommitment = org.web3j.crypto.Hash.sha3String(idToken);
         int t = Math.floorDiv(endpoints.length, 4);
         int k = t * 2 + 1;
 
         // make commitment requests to endpoints
         Instant instant = Instant.now();
+        byte[] commitmentRequest = APIUtils.generateJsonRPCBody("CommitmentRequest", new CommitmentRequestParams("mug00", tokenCommitment.substring(2), pubKeyX, pubKeyY, String.valueOf(instant.toEpochMilli()), verifier));
         for (int i = 0; i < endpoints.length; i++) {
-            CompletableFuture<String> p = APIUtils.post(endpoints[i], APIUtils.generateJsonRPCObject("CommitmentRequest", new CommitmentRequestParams("mug00", tokenCommitment.substring(2), pubKeyX, pubKeyY, String.valueOf(instant.toEpochMilli()), verifier)));
+            CompletableFuture<JsonRPCResponse<NodeSignature>> p = APIUtils.postJsonRPC(endpoints[i], commitmentRequest, NodeSignature.class, commitmentTimeoutMillis);
             promiseArr.add(i, p);
         }
         // send share request once k + t number of commitment requests have completed
-        return new Some<>(promiseArr, resultArr -> {
-
-            List<String> resultArrList = Arrays.asList(resultArr);
-            List<String> completedRequests = resultArrList.stream().filter(resp -> resp != null && !resp.equals("")).collect(Collectors.toList());
-            CompletableFuture<List<String>> completableFuture = new CompletableFuture<>();
-            if (completedRequests.size() >= k + t) {
-                completableFuture.complete(completedRequests);
-                return completableFuture;
+        List<NodeSignature> nodeSigs = new ArrayList<>();
+        return new Some<>(promiseArr, new QuorumPolicy(k + t, endpoints.length - (k + t)), (index, response) -> {
+            if (response == null || response.getResult() == null) {
+                throw new RejectedResponseException("commitment request failed on node");
+            }
+            nodeSigs.add(response.getResult());
+            if (nodeSigs.size() >= k + t) {
+                return CompletableFuture.completedFuture(nodeSigs);
             } else {
                 throw new PredicateFailedException("insufficient responses");
             }
         })
                 .getCompletableFuture()
                 .thenComposeAsync(responses -> {
-                    List<CompletableFuture<String>> promiseArrRequests = new ArrayList<>();
-                    List<String> nodeSigs = new ArrayList<>();
-                    for (String respons : responses) {
-                        if (respons != null && !respons.equals("")) {
-                            Gson gson = new Gson();
-                            JsonRPCResponse nodeSigResponse = gson.fromJson(respons, JsonRPCResponse.class);
-                            if (nodeSigResponse != null && nodeSigResponse.getResult() != null) {
-                                nodeSigs.add(gson.toJson(nodeSigResponse.getResult()));
-                            }
-                        }
-                    }
-                    NodeSignature[] nodeSignatures = new NodeSignature[nodeSigs.size()];
-                    for (int l = 0; l < nodeSigs.size(); l++) {
-                        Gson gson = new Gson();
-                        nodeSignatures[l] = gson.fromJson(nodeSigs.get(l), NodeSignature.class);
-                    }
+                    List<CompletableFuture<JsonRPCResponse<KeyAssignResult>>> promiseArrRequests = new ArrayList<>();
+                    NodeSignature[] nodeSignatures = responses.toArray(new NodeSignature[0]);
                     ShareRequestItem[] shareRequestItems = {new ShareRequestItem((String) verifierParams.get("verifier_id"), idToken, nodeSignatures, verifier)};
+                    byte[] shareRequest = APIUtils.generateJsonRPCBody("ShareRequest", new ShareRequestParams(shareRequestItems));
                     for (String endpoint : endpoints) {
-                        String req = APIUtils.generateJsonRPCObject("ShareRequest", new ShareRequestParams(shareRequestItems));
-                        promiseArrRequests.add(APIUtils.post(endpoint, req));
+                        promiseArrRequests.add(APIUtils.postJsonRPC(endpoint, shareRequest, KeyAssignResult.class, shareTimeoutMillis));
                     }
-                    return new Some<>(promiseArrRequests, shareResponses -> {
+                    // public keys as decoded bytes, so that nodes formatting the same key differently still agree
+                    List<ByteBuffer> completedResponsesPubKeys = new ArrayList<>();
+                    // shares are kept encrypted until the user public key is known, then decrypted together in one batch;
+                    // every later share is decrypted once, when its response arrives
+                    List<KeyAssignment> pendingKeys = new ArrayList<>();
+                    List<BigInteger> pendingIndexes = new ArrayList<>();
+                    EciesDecryptor decryptor = new EciesDecryptor(tmpKey.getPrivateKey());
+                    AtomicReference<KeyReconstructor> keyReconstructor = new AtomicReference<>();
+                    return new Some<>(promiseArrRequests, new QuorumPolicy(k, endpoints.length - k), (index, shareResponse) -> {
+                        if (shareResponse == null || shareResponse.getResult() == null || shareResponse.getResult().getKeys() == null || shareResponse.getResult().getKeys().length == 0) {
+                            throw new RejectedResponseException("share request failed on node");
+                        }
+                        KeyAssignment firstKey = shareResponse.getResult().getKeys()[0];
+                        completedResponsesPubKeys.add(decodePubKey(firstKey.getPublicKey()));
+                        if (firstKey.getMetadata() != null) {
+                            pendingKeys.add(firstKey);
+                            pendingIndexes.add(indexes[index]);
+                        }
                         // check if threshold number of nodes have returned the same user public key
-                        BigInteger privateKey = null;
-                        String ethAddress = null;
-                        List<String> completedResponses = new ArrayList<>();
-                        for (String shareResponse : shareResponses) {
-                            if (shareResponse != null && !shareResponse.equals("")) {
-                                Gson gson = new Gson();
-                                JsonRPCResponse shareResponseJson = gson.fromJson(shareResponse, JsonRPCResponse.class);
-                                if (shareResponseJson != null && shareResponseJson.getResult() != null) {
-                                    completedResponses.add(gson.toJson(shareResponseJson.getResult()));
-                                }
-                            }
+                        ByteBuffer thresholdPubKey = Utils.thresholdSame(completedResponsesPubKeys, k);
+                        if (completedResponsesPubKeys.size() < k || thresholdPubKey == null) {
+                            throw new PredicateFailedException("could not get enough shares");
                         }
-                        List<String> completedResponsesPubKeys = completedResponses.stream().map(x -> {
-                            Gson gson = new Gson();
-                            KeyAssignResult keyAssignResult = gson.fromJson(x, KeyAssignResult.class);
-                            if (keyAssignResult == null || keyAssignResult.getKeys() == null || keyAssignResult.getKeys().length == 0) {
-                                return null;
-                            }
-                            KeyAssignment keyAssignResultFirstKey = keyAssignResult.getKeys()[0];
-                            return gson.toJson(keyAssignResultFirstKey.getPublicKey());
-                        }).collect(Collectors.toList());
-
-                        String thresholdPublicKeyString = Utils.thresholdSame(completedResponsesPubKeys, k);
-                        Gson gson = new Gson();
-                        PubKey thresholdPubKey = null;
-                        if (thresholdPublicKeyString != null && !thresholdPublicKeyString.equals("")) {
-                            thresholdPubKey = gson.fromJson(thresholdPublicKeyString, PubKey.class);
+                        KeyReconstructor reconstructor = keyReconstructor.get();
+                        if (reconstructor == null) {
+                            reconstructor = new KeyReconstructor(k, thresholdPubKey.array(), recoveryExecutor, recoveryParallelism);
+                            keyReconstructor.set(reconstructor);
                         }
-                        if (completedResponses.size() >= k && thresholdPubKey != null) {
-                            List<DecryptedShare> decryptedShares = new ArrayList<>();
-                            for (int i = 0; i < shareResponses.length; i++) {
-                                if (shareResponses[i] != null && !shareResponses[i].equals("")) {
-                                    JsonRPCResponse currentJsonRPCResponse = gson.fromJson(shareResponses[i], JsonRPCResponse.class);
-                                    if (currentJsonRPCResponse != null && currentJsonRPCResponse.getResult() != null && !currentJsonRPCResponse.getResult().equals("")) {
-                                        KeyAssignResult currentShareResponse = gson.fromJson(gson.toJson(currentJsonRPCResponse.getResult()), KeyAssignResult.class);
-                                        if (currentShareResponse != null && currentShareResponse.getKeys() != null && currentShareResponse.getKeys().length > 0) {
-                                            KeyAssignment firstKey = currentShareResponse.getKeys()[0];
-                                            if (firstKey.getMetadata() != null) {
-                                                try {
-                                                    AES256CBC aes256cbc = new AES256CBC(tmpKey.getPrivateKey().toString(16), firstKey.getMetadata().getEphemPublicKey(), firstKey.getMetadata().getIv());
-                                                    // Implementation specific oddity - hex string actually gets passed as a base64 string
-                                                    String hexUTF8AsBase64 = firstKey.getShare();
-                                                    String hexUTF8 = new String(Base64.decode(hexUTF8AsBase64), StandardCharsets.UTF_8);
-                                                    byte[] encryptedShareBytes = AES256CBC.toByteArray(new BigInteger(hexUTF8, 16));
-                                                    BigInteger share = new BigInteger(1, aes256cbc.decrypt(Base64.encodeBytes(encryptedShareBytes)));
-                                                    decryptedShares.add(new DecryptedShare(indexes[i], share));
-                                                } catch (Exception e) {
-                                                    e.printStackTrace();
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            List<List<Integer>> allCombis = Utils.kCombinations(decryptedShares.size(), k);
-                            for (List<Integer> currentCombi : allCombis) {
-                                List<DecryptedShare> currentCombiShares = IntStream.range(0, decryptedShares.size()).filter(x -> currentCombi.contains(x)).mapToObj(decryptedShares::get).collect(Collectors.toList());
-                                BigInteger derivedPrivateKey = TorusUtils.lagrangeInterpolation(currentCombiShares.stream().map(DecryptedShare::getValue).toArray(BigInteger[]::new), currentCombiShares.stream().map(DecryptedShare::getIndex).toArray(BigInteger[]::new));
-                                assert derivedPrivateKey != null;
-                                ECKeyPair derivedECKeyPair = ECKeyPair.create(derivedPrivateKey);
-                                String derivedPubKeyString = derivedECKeyPair.getPublicKey().toString(16);
-                                String derivedPubKeyX = derivedPubKeyString.substring(0, derivedPubKeyString.length() / 2);
-                                String derivedPubKeyY = derivedPubKeyString.substring(derivedPubKeyString.length() / 2);
-                                if (new BigInteger(derivedPubKeyX, 16).compareTo(new BigInteger(thresholdPubKey.getX(), 16)) == 0 &&
-                                        new BigInteger(derivedPubKeyY, 16).compareTo(new BigInteger(thresholdPubKey.getY(), 16)) == 0
-                                ) {
-                                    privateKey = derivedPrivateKey;
-                                    ethAddress = "0x" + Hash.sha3(derivedECKeyPair.getPublicKey().toString(16)).substring(64 - 38);
-                                    break;
-                                }
-                            }
-                            if (privateKey == null) {
-                                throw new PredicateFailedException("could not derive private key");
+                        // only the subsets containing a newly decrypted share are tried
+                        BigInteger privateKey = null;
+                        for (DecryptedShare share : decryptShares(decryptor, pendingKeys, pendingIndexes)) {
+                            privateKey = reconstructor.add(share);
+                            if (privateKey != null) {
+                                break;
                             }
-                        } else {
-                            throw new PredicateFailedException("could not get enough shares");
                         }
-
-                        return CompletableFuture.completedFuture(new RetrieveSharesResponse(ethAddress, privateKey.toString(16)));
+                        pendingKeys.clear();
+                        pendingIndexes.clear();
+                        if (privateKey == null) {
+                            throw new PredicateFailedException("could not derive private key");
+                        }
+                        String ethAddress = "0x" + addressFromPrivateKey(privateKey);
+                        return CompletableFuture.completedFuture(new RetrieveSharesResponse(ethAddress, HexCodec.encodeScalar(privateKey)));
                     }).getCompletableFuture();
                 });
     }
@@ -201,33 +187,67 @@ public class TorusUtils {
 ////        }
 //    }
 
+    /**
+     * Decrypts the shares nodes encrypted to the temporary key, sharing one field inversion between their ECDH
+     * secrets. Shares that cannot be decrypted or whose MAC does not match are left out, so they never reach key
+     * reconstruction.
+     */
+    private static List<DecryptedShare> decryptShares(EciesDecryptor decryptor, List<KeyAssignment> keys, List<BigInteger> indexes) {
+        int size = keys.size();
+        String[] ephemPublicKeys = new String[size];
+        String[] ivs = new String[size];
+        String[] macs = new String[size];
+        String[] shares = new String[size];
+        for (int i = 0; i < size; i++) {
+            ShareMetadata metadata = keys.get(i).getMetadata();
+            ephemPublicKeys[i] = metadata.getEphemPublicKey();
+            ivs[i] = metadata.getIv();
+            macs[i] = metadata.getMac();
+            // Implementation specific oddity - hex string actually gets passed as a base64 string
+            shares[i] = keys.get(i).getShare();
+        }
+        byte[][] decrypted = decryptor.decryptShares(ephemPublicKeys, ivs, macs, shares);
+        List<DecryptedShare> decryptedShares = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (decrypted[i] != null) {
+                decryptedShares.add(new DecryptedShare(indexes.get(i), new BigInteger(1, decrypted[i])));
+            }
+        }
+        return decryptedShares;
+    }
+
     static BigInteger lagrangeInterpolation(BigInteger[] shares, BigInteger[] nodeIndex) {
         if (shares.length != nodeIndex.length) {
             return null;
         }
-        BigInteger secret = new BigInteger("0");
-        for (int i = 0; i < shares.length; i++) {
-            BigInteger upper = new BigInteger("1");
-            BigInteger lower = new BigInteger("1");
-            for (int j = 0; j < shares.length; j++) {
-                if (i != j) {
-                    upper = upper.multiply(nodeIndex[j].negate());
-                    upper = upper.mod(secp256k1N);
-                    BigInteger temp = nodeIndex[i].subtract(nodeIndex[j]);
-                    temp = temp.mod(secp256k1N);
-                    lower = lower.multiply(temp).mod(secp256k1N);
-                }
-            }
-            BigInteger delta = upper.multiply(lower.modInverse(secp256k1N)).mod(secp256k1N);
-            delta = delta.multiply(shares[i]).mod(secp256k1N);
-            secret = secret.add(delta);
-        }
-        return secret.mod(secp256k1N);
+        return KeyReconstructor.lagrangeInterpolation(shares, nodeIndex);
     }
 
     public static String generateAddressFromPrivKey(String privateKey) {
-        BigInteger privKey = new BigInteger(privateKey, 16);
-        return Keys.getAddress(ECKeyPair.create(privKey.toByteArray()));
+        return addressFromPrivateKey(new BigInteger(privateKey, 16));
+    }
+
+    // lowercase hex without 0x, hashing the full 64 byte public key even when a coordinate starts with zeros
+    private static String addressFromPrivateKey(BigInteger privateKey) {
+        byte[] publicKey = new byte[HexCodec.POINT_BYTES];
+        Secp256k1Generator.multiply(privateKey).toBytes(publicKey, 0);
+        return HexCodec.encode(Keys.getAddress(publicKey), 0, HexCodec.ADDRESS_BYTES);
+    }
+
+    /**
+     * A node's user public key as 64 bytes, x then y, or a rejection if the node sent none or sent malformed hex.
+     */
+    private static ByteBuffer decodePubKey(PubKey pubKey) throws RejectedResponseException {
+        if (pubKey == null || pubKey.getX() == null || pubKey.getY() == null) {
+            throw new RejectedResponseException("share request returned no public key");
+        }
+        byte[] bytes = new byte[HexCodec.POINT_BYTES];
+        try {
+            HexCodec.decodePoint(pubKey.getX(), pubKey.getY(), bytes, 0);
+        } catch (IllegalArgumentException e) {
+            throw new RejectedResponseException("share request returned a malformed public key");
+        }
+        return ByteBuffer.wrap(bytes);
     }
 
     static CompletableFuture<TorusPublicKey> _getPublicAddress(String[] endpoints, TorusNodePub[] torusNodePubs, VerifierArgs verifierArgs, boolean isExtended) {
@@ -243,8 +263,7 @@ public class TorusUtils {
                                         completableFuture.completeExceptionally(new Exception("could not get lookup, no results"));
                                         return null;
                                     }
-                                    Gson gson = new Gson();
-                                    VerifierLookupRequestResult verifierLookupRequestResult = gson.fromJson(res.getKeyResult(), VerifierLookupRequestResult.class);
+                                    VerifierLookupRequestResult verifierLookupRequestResult = res.getKeyResult();
                                     if (verifierLookupRequestResult == null || verifierLookupRequestResult.getKeys() == null || verifierLookupRequestResult.getKeys().length == 0) {
                                         completableFuture.completeExceptionally(new Exception("could not get lookup, no keys"));
                                         return null;
@@ -254,8 +273,7 @@ public class TorusUtils {
                                 });
                     }
                     if (keyLookupResult.getKeyResult() != null) {
-                        Gson gson = new Gson();
-                        VerifierLookupRequestResult verifierLookupRequestResult = gson.fromJson(keyLookupResult.getKeyResult(), VerifierLookupRequestResult.class);
+                        VerifierLookupRequestResult verifierLookupRequestResult = keyLookupResult.getKeyResult();
                         if (verifierLookupRequestResult == null || verifierLookupRequestResult.getKeys() == null || verifierLookupRequestResult.getKeys().length == 0) {
                             completableFuture.completeExceptionally(new Exception("could not get lookup, no keys"));
                             return null;
@@ -281,10 +299,16 @@ public class TorusUtils {
     }
 
     public static CompletableFuture<TorusPublicKey> getPublicAddress(String[] endpoints, TorusNodePub[] torusNodePubs, VerifierArgs verifierArgs, boolean isExtended) {
-        return _getPublicAddress(endpoints, torusNodePubs, verifierArgs, isExtended);
+        PublicAddressCache cache = publicAddressCache;
+        if (cache == null) {
+            return _getPublicAddress(endpoints, torusNodePubs, verifierArgs, isExtended);
+        }
+        // the extended key is cached, and serves both kinds of call
+        CompletableFuture<TorusPublicKey> publicKey = cache.get(endpoints, verifierArgs, () -> _getPublicAddress(endpoints, torusNodePubs, verifierArgs, true));
+        return isExtended ? publicKey : publicKey.thenApply(extended -> new TorusPublicKey(extended.getAddress()));
     }
 
     public static CompletableFuture<TorusPublicKey> getPublicAddress(String[] endpoints, TorusNodePub[] torusNodePubs, VerifierArgs verifierArgs) {
-        return _getPublicAddress(endpoints, torusNodePubs, verifierArgs, false);
+        return getPublicAddress(endpoints, torusNodePubs, verifierArgs, false);
     }
 }
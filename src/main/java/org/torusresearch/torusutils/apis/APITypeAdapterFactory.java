@@ -0,0 +1,788 @@
+package org.torusresearch.torusutils.apis;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Hand-written streaming adapters for the request and response types exchanged with Torus nodes, so that encoding and
+ * decoding them never goes through Gson's reflective adapters. Null fields are left out when writing, matching what
+ * the reflective adapters produced.
+ */
+public class APITypeAdapterFactory implements TypeAdapterFactory {
+    private static final TypeAdapter<PubKey> PUB_KEY = new TypeAdapter<PubKey>() {
+        @Override
+        public void write(JsonWriter out, PubKey value) throws IOException {
+            out.beginObject();
+            out.name("X").value(value.getX());
+            out.name("Y").value(value.getY());
+            out.endObject();
+        }
+
+        @Override
+        public PubKey read(JsonReader in) throws IOException {
+            String x = null;
+            String y = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "X":
+                        x = in.nextString();
+                        break;
+                    case "Y":
+                        y = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new PubKey(x, y);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<ShareMetadata> SHARE_METADATA = new TypeAdapter<ShareMetadata>() {
+        @Override
+        public void write(JsonWriter out, ShareMetadata value) throws IOException {
+            out.beginObject();
+            out.name("iv").value(value.getIv());
+            out.name("ephemPublicKey").value(value.getEphemPublicKey());
+            out.name("mac").value(value.getMac());
+            out.name("mode").value(value.getMode());
+            out.endObject();
+        }
+
+        @Override
+        public ShareMetadata read(JsonReader in) throws IOException {
+            String iv = null;
+            String ephemPublicKey = null;
+            String mac = null;
+            String mode = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "iv":
+                        iv = in.nextString();
+                        break;
+                    case "ephemPublicKey":
+                        ephemPublicKey = in.nextString();
+                        break;
+                    case "mac":
+                        mac = in.nextString();
+                        break;
+                    case "mode":
+                        mode = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ShareMetadata(iv, ephemPublicKey, mac, mode);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<KeyAssignment> KEY_ASSIGNMENT = new TypeAdapter<KeyAssignment>() {
+        @Override
+        public void write(JsonWriter out, KeyAssignment value) throws IOException {
+            out.beginObject();
+            out.name("Index").value(value.getIndex());
+            out.name("PublicKey");
+            PUB_KEY.write(out, value.getPublicKey());
+            out.name("Threshold").value(value.getThreshold());
+            out.name("Verifiers");
+            if (value.getVerifiers() == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (String verifier : value.getVerifiers().keySet()) {
+                    out.name(verifier);
+                    writeStringArray(out, value.getVerifiers().get(verifier));
+                }
+                out.endObject();
+            }
+            out.name("Share").value(value.getShare());
+            out.name("Metadata");
+            SHARE_METADATA.write(out, value.getMetadata());
+            out.endObject();
+        }
+
+        @Override
+        public KeyAssignment read(JsonReader in) throws IOException {
+            String index = null;
+            PubKey publicKey = null;
+            Integer threshold = null;
+            HashMap<String, String[]> verifiers = null;
+            String share = null;
+            ShareMetadata metadata = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "Index":
+                        index = in.nextString();
+                        break;
+                    case "PublicKey":
+                        publicKey = PUB_KEY.read(in);
+                        break;
+                    case "Threshold":
+                        threshold = in.nextInt();
+                        break;
+                    case "Verifiers":
+                        verifiers = new HashMap<>();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            String verifier = in.nextName();
+                            verifiers.put(verifier, readStringArray(in));
+                        }
+                        in.endObject();
+                        break;
+                    case "Share":
+                        share = in.nextString();
+                        break;
+                    case "Metadata":
+                        metadata = SHARE_METADATA.read(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new KeyAssignment(index, publicKey, threshold, verifiers, share, metadata);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<KeyAssignResult> KEY_ASSIGN_RESULT = new TypeAdapter<KeyAssignResult>() {
+        @Override
+        public void write(JsonWriter out, KeyAssignResult value) throws IOException {
+            out.beginObject();
+            out.name("keys");
+            if (value.getKeys() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (KeyAssignment key : value.getKeys()) {
+                    KEY_ASSIGNMENT.write(out, key);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public KeyAssignResult read(JsonReader in) throws IOException {
+            KeyAssignment[] keys = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                if (name.equals("keys")) {
+                    List<KeyAssignment> keyList = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        keyList.add(KEY_ASSIGNMENT.read(in));
+                    }
+                    in.endArray();
+                    keys = keyList.toArray(new KeyAssignment[0]);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new KeyAssignResult(keys);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<VerifierLookupItem> VERIFIER_LOOKUP_ITEM = new TypeAdapter<VerifierLookupItem>() {
+        @Override
+        public void write(JsonWriter out, VerifierLookupItem value) throws IOException {
+            out.beginObject();
+            out.name("key_index").value(value.getKey_index());
+            out.name("pub_key_X").value(value.getPub_key_X());
+            out.name("pub_key_Y").value(value.getPub_key_Y());
+            out.name("address").value(value.getAddress());
+            out.endObject();
+        }
+
+        @Override
+        public VerifierLookupItem read(JsonReader in) throws IOException {
+            String keyIndex = null;
+            String pubKeyX = null;
+            String pubKeyY = null;
+            String address = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "key_index":
+                        keyIndex = in.nextString();
+                        break;
+                    case "pub_key_X":
+                        pubKeyX = in.nextString();
+                        break;
+                    case "pub_key_Y":
+                        pubKeyY = in.nextString();
+                        break;
+                    case "address":
+                        address = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new VerifierLookupItem(keyIndex, pubKeyX, pubKeyY, address);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<VerifierLookupRequestResult> VERIFIER_LOOKUP_REQUEST_RESULT = new TypeAdapter<VerifierLookupRequestResult>() {
+        @Override
+        public void write(JsonWriter out, VerifierLookupRequestResult value) throws IOException {
+            out.beginObject();
+            out.name("keys");
+            if (value.getKeys() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (VerifierLookupItem key : value.getKeys()) {
+                    VERIFIER_LOOKUP_ITEM.write(out, key);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public VerifierLookupRequestResult read(JsonReader in) throws IOException {
+            VerifierLookupItem[] keys = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                if (name.equals("keys")) {
+                    List<VerifierLookupItem> keyList = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        keyList.add(VERIFIER_LOOKUP_ITEM.read(in));
+                    }
+                    in.endArray();
+                    keys = keyList.toArray(new VerifierLookupItem[0]);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new VerifierLookupRequestResult(keys);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<NodeSignature> NODE_SIGNATURE = new TypeAdapter<NodeSignature>() {
+        @Override
+        public void write(JsonWriter out, NodeSignature value) throws IOException {
+            out.beginObject();
+            out.name("signature").value(value.getSignature());
+            out.name("data").value(value.getData());
+            out.name("nodepubx").value(value.getNodepubx());
+            out.name("nodepuby").value(value.getNodepuby());
+            out.endObject();
+        }
+
+        @Override
+        public NodeSignature read(JsonReader in) throws IOException {
+            String signature = null;
+            String data = null;
+            String nodepubx = null;
+            String nodepuby = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "signature":
+                        signature = in.nextString();
+                        break;
+                    case "data":
+                        data = in.nextString();
+                        break;
+                    case "nodepubx":
+                        nodepubx = in.nextString();
+                        break;
+                    case "nodepuby":
+                        nodepuby = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new NodeSignature(signature, data, nodepubx, nodepuby);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<ShareRequestItem> SHARE_REQUEST_ITEM = new TypeAdapter<ShareRequestItem>() {
+        @Override
+        public void write(JsonWriter out, ShareRequestItem value) throws IOException {
+            out.beginObject();
+            out.name("idtoken").value(value.getIdtoken());
+            out.name("nodesignatures");
+            if (value.getNodesignatures() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (NodeSignature nodeSignature : value.getNodesignatures()) {
+                    NODE_SIGNATURE.write(out, nodeSignature);
+                }
+                out.endArray();
+            }
+            out.name("verifieridentifier").value(value.getVerifieridentifier());
+            out.name("verifier_id").value(value.getVerifier_id());
+            out.endObject();
+        }
+
+        @Override
+        public ShareRequestItem read(JsonReader in) throws IOException {
+            String idtoken = null;
+            NodeSignature[] nodesignatures = null;
+            String verifieridentifier = null;
+            String verifierId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "idtoken":
+                        idtoken = in.nextString();
+                        break;
+                    case "nodesignatures":
+                        List<NodeSignature> signatureList = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            signatureList.add(NODE_SIGNATURE.read(in));
+                        }
+                        in.endArray();
+                        nodesignatures = signatureList.toArray(new NodeSignature[0]);
+                        break;
+                    case "verifieridentifier":
+                        verifieridentifier = in.nextString();
+                        break;
+                    case "verifier_id":
+                        verifierId = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ShareRequestItem(verifierId, idtoken, nodesignatures, verifieridentifier);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<ShareRequestParams> SHARE_REQUEST_PARAMS = new TypeAdapter<ShareRequestParams>() {
+        @Override
+        public void write(JsonWriter out, ShareRequestParams value) throws IOException {
+            out.beginObject();
+            out.name("item");
+            if (value.getItem() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (ShareRequestItem item : value.getItem()) {
+                    SHARE_REQUEST_ITEM.write(out, item);
+                }
+                out.endArray();
+            }
+            out.name("encrypted").value(value.getEncrypted());
+            out.endObject();
+        }
+
+        @Override
+        public ShareRequestParams read(JsonReader in) throws IOException {
+            ShareRequestItem[] items = null;
+            String encrypted = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "item":
+                        List<ShareRequestItem> itemList = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            itemList.add(SHARE_REQUEST_ITEM.read(in));
+                        }
+                        in.endArray();
+                        items = itemList.toArray(new ShareRequestItem[0]);
+                        break;
+                    case "encrypted":
+                        encrypted = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ShareRequestParams(items, encrypted);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<CommitmentRequestParams> COMMITMENT_REQUEST_PARAMS = new TypeAdapter<CommitmentRequestParams>() {
+        @Override
+        public void write(JsonWriter out, CommitmentRequestParams value) throws IOException {
+            out.beginObject();
+            out.name("messageprefix").value(value.getMessageprefix());
+            out.name("tokencommitment").value(value.getTokencommitment());
+            out.name("temppubx").value(value.getTemppubx());
+            out.name("temppuby").value(value.getTemppuby());
+            out.name("timestamp").value(value.getTimestamp());
+            out.name("verifieridentifier").value(value.getVerifieridentifier());
+            out.endObject();
+        }
+
+        @Override
+        public CommitmentRequestParams read(JsonReader in) throws IOException {
+            String messageprefix = null;
+            String tokencommitment = null;
+            String temppubx = null;
+            String temppuby = null;
+            String timestamp = null;
+            String verifieridentifier = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "messageprefix":
+                        messageprefix = in.nextString();
+                        break;
+                    case "tokencommitment":
+                        tokencommitment = in.nextString();
+                        break;
+                    case "temppubx":
+                        temppubx = in.nextString();
+                        break;
+                    case "temppuby":
+                        temppuby = in.nextString();
+                        break;
+                    case "timestamp":
+                        timestamp = in.nextString();
+                        break;
+                    case "verifieridentifier":
+                        verifieridentifier = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new CommitmentRequestParams(messageprefix, tokencommitment, temppubx, temppuby, timestamp, verifieridentifier);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<VerifierLookupRequestParams> VERIFIER_LOOKUP_REQUEST_PARAMS = new TypeAdapter<VerifierLookupRequestParams>() {
+        @Override
+        public void write(JsonWriter out, VerifierLookupRequestParams value) throws IOException {
+            out.beginObject();
+            out.name("verifier").value(value.getVerifier());
+            out.name("verifier_id").value(value.getVerifier_id());
+            out.endObject();
+        }
+
+        @Override
+        public VerifierLookupRequestParams read(JsonReader in) throws IOException {
+            String[] fields = readVerifierFields(in);
+            return new VerifierLookupRequestParams(fields[0], fields[1]);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<KeyAssignParams> KEY_ASSIGN_PARAMS = new TypeAdapter<KeyAssignParams>() {
+        @Override
+        public void write(JsonWriter out, KeyAssignParams value) throws IOException {
+            out.beginObject();
+            out.name("verifier").value(value.getVerifier());
+            out.name("verifier_id").value(value.getVerifier_id());
+            out.endObject();
+        }
+
+        @Override
+        public KeyAssignParams read(JsonReader in) throws IOException {
+            String[] fields = readVerifierFields(in);
+            return new KeyAssignParams(fields[0], fields[1]);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<SignerResponse> SIGNER_RESPONSE = new TypeAdapter<SignerResponse>() {
+        @Override
+        public void write(JsonWriter out, SignerResponse value) throws IOException {
+            out.beginObject();
+            out.name("torus-timestamp").value(value.getTorus_timestamp());
+            out.name("torus-nonce").value(value.getTorus_nonce());
+            out.name("torus-signature").value(value.getTorus_signature());
+            out.endObject();
+        }
+
+        @Override
+        public SignerResponse read(JsonReader in) throws IOException {
+            String timestamp = null;
+            String nonce = null;
+            String signature = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "torus-timestamp":
+                        timestamp = in.nextString();
+                        break;
+                    case "torus-nonce":
+                        nonce = in.nextString();
+                        break;
+                    case "torus-signature":
+                        signature = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new SignerResponse(timestamp, nonce, signature);
+        }
+    }.nullSafe();
+
+    private static final TypeAdapter<JsonRPCError> JSON_RPC_ERROR = new TypeAdapter<JsonRPCError>() {
+        @Override
+        public void write(JsonWriter out, JsonRPCError value) throws IOException {
+            out.beginObject();
+            out.name("code").value(value.getCode());
+            out.name("message").value(value.getMessage());
+            out.name("data").value(value.getData());
+            out.endObject();
+        }
+
+        @Override
+        public JsonRPCError read(JsonReader in) throws IOException {
+            int code = 0;
+            String message = null;
+            String data = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "code":
+                        code = in.nextInt();
+                        break;
+                    case "message":
+                        message = in.nextString();
+                        break;
+                    case "data":
+                        // nodes usually send a string here, keep anything else as its json text
+                        JsonToken token = in.peek();
+                        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                            data = in.nextString();
+                        } else {
+                            data = JsonParser.parseReader(in).toString();
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new JsonRPCError(code, message, data);
+        }
+    }.nullSafe();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == JsonRPCCall.class) {
+            return (TypeAdapter<T>) new JsonRPCCallTypeAdapter(gson).nullSafe();
+        } else if (rawType == JsonRPCError.class) {
+            return (TypeAdapter<T>) JSON_RPC_ERROR;
+        } else if (rawType == PubKey.class) {
+            return (TypeAdapter<T>) PUB_KEY;
+        } else if (rawType == ShareMetadata.class) {
+            return (TypeAdapter<T>) SHARE_METADATA;
+        } else if (rawType == KeyAssignment.class) {
+            return (TypeAdapter<T>) KEY_ASSIGNMENT;
+        } else if (rawType == KeyAssignResult.class) {
+            return (TypeAdapter<T>) KEY_ASSIGN_RESULT;
+        } else if (rawType == VerifierLookupItem.class) {
+            return (TypeAdapter<T>) VERIFIER_LOOKUP_ITEM;
+        } else if (rawType == VerifierLookupRequestResult.class) {
+            return (TypeAdapter<T>) VERIFIER_LOOKUP_REQUEST_RESULT;
+        } else if (rawType == NodeSignature.class) {
+            return (TypeAdapter<T>) NODE_SIGNATURE;
+        } else if (rawType == ShareRequestItem.class) {
+            return (TypeAdapter<T>) SHARE_REQUEST_ITEM;
+        } else if (rawType == ShareRequestParams.class) {
+            return (TypeAdapter<T>) SHARE_REQUEST_PARAMS;
+        } else if (rawType == CommitmentRequestParams.class) {
+            return (TypeAdapter<T>) COMMITMENT_REQUEST_PARAMS;
+        } else if (rawType == VerifierLookupRequestParams.class) {
+            return (TypeAdapter<T>) VERIFIER_LOOKUP_REQUEST_PARAMS;
+        } else if (rawType == KeyAssignParams.class) {
+            return (TypeAdapter<T>) KEY_ASSIGN_PARAMS;
+        } else if (rawType == SignerResponse.class) {
+            return (TypeAdapter<T>) SIGNER_RESPONSE;
+        }
+        return null;
+    }
+
+    private static class JsonRPCCallTypeAdapter extends TypeAdapter<JsonRPCCall> {
+        private final Gson gson;
+
+        JsonRPCCallTypeAdapter(Gson _gson) {
+            gson = _gson;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(JsonWriter out, JsonRPCCall value) throws IOException {
+            out.beginObject();
+            out.name("jsonrpc").value(value.getJsonrpc());
+            out.name("method").value(value.getMethod());
+            out.name("id").value(value.getId());
+            out.name("params");
+            if (value.getParams() == null) {
+                out.nullValue();
+            } else {
+                TypeAdapter<Object> paramsAdapter = (TypeAdapter<Object>) gson.getAdapter(value.getParams().getClass());
+                paramsAdapter.write(out, value.getParams());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public JsonRPCCall read(JsonReader in) throws IOException {
+            String jsonrpc = null;
+            String method = null;
+            Integer id = null;
+            // the shape of params depends on the method, leave it to the receiver to decode
+            JsonElement params = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (skipNull(in)) {
+                    continue;
+                }
+                switch (name) {
+                    case "jsonrpc":
+                        jsonrpc = in.nextString();
+                        break;
+                    case "method":
+                        method = in.nextString();
+                        break;
+                    case "id":
+                        id = in.nextInt();
+                        break;
+                    case "params":
+                        params = JsonParser.parseReader(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return new JsonRPCCall(jsonrpc, method, id, params);
+        }
+    }
+
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static String[] readVerifierFields(JsonReader in) throws IOException {
+        String[] fields = new String[2];
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (skipNull(in)) {
+                continue;
+            }
+            switch (name) {
+                case "verifier":
+                    fields[0] = in.nextString();
+                    break;
+                case "verifier_id":
+                    fields[1] = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return fields;
+    }
+
+    private static void writeStringArray(JsonWriter out, String[] values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static String[] readStringArray(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(skipNull(in) ? null : in.nextString());
+        }
+        in.endArray();
+        return values.toArray(new String[0]);
+    }
+}
@@ -1,88 +1,123 @@
 package org.torusresearch.torusutils.apis;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import org.apache.http.Header;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.concurrent.FutureCallback;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
-import org.apache.http.impl.nio.client.HttpAsyncClients;
-import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
 
 public class APIUtils {
+    // Gson is thread-safe, one instance with the hand-written adapters serves the whole library
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new APITypeAdapterFactory())
+            .registerTypeAdapterFactory(new JsonRPCResponseTypeAdapterFactory())
+            .disableHtmlEscaping()
+            .create();
+    private static HttpClientOptions httpClientOptions = new HttpClientOptions();
+    private static TorusTransport transport = new ApacheAsyncTransport(httpClientOptions);
+
     private APIUtils() {
     }
 
+    public static Gson getGson() {
+        return gson;
+    }
+
     public static String generateJsonRPCObject(String method, Object params) {
-        Gson gson = new Gson();
         return gson.toJson(new JsonRPCCall(method, params));
     }
 
+    /**
+     * Serializes a JSON-RPC request once so that the same body can be posted to every node.
+     * The returned array is shared by those requests and must not be modified.
+     */
+    public static byte[] generateJsonRPCBody(String method, Object params) {
+        return generateJsonRPCObject(method, params).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replaces the transport every request goes through, closing the previous one.
+     */
+    public static synchronized void setTransport(TorusTransport _transport) throws IOException {
+        TorusTransport previous = transport;
+        transport = _transport;
+        previous.close();
+    }
+
+    public static synchronized TorusTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Replaces the options used for requests and installs a new http transport built from them. The previous
+     * transport is closed.
+     */
+    public static synchronized void setHttpClientOptions(HttpClientOptions options) throws IOException {
+        httpClientOptions = options;
+        setTransport(new ApacheAsyncTransport(options));
+    }
+
+    /**
+     * The request timeout used by the calls that do not take one.
+     */
+    public static synchronized long getRequestTimeoutMillis() {
+        return httpClientOptions.getRequestTimeoutMillis();
+    }
+
+    /**
+     * Starts the transport. Calling this is optional, the http transport is started lazily on the first request.
+     */
+    public static void start() {
+        getTransport().start();
+    }
+
+    /**
+     * Closes the transport and its connections. The http transport starts again on the next request.
+     */
+    public static void close() throws IOException {
+        getTransport().close();
+    }
+
     public static CompletableFuture<String> post(String url, String data) {
-        return _post(url, data, new Header[0]);
+        return post(url, data, new Header[0], getRequestTimeoutMillis());
     }
 
     public static CompletableFuture<String> post(String url, String data, Header[] headers) {
-        return _post(url, data, headers);
-    }
-
-    private static CompletableFuture<String> _post(String url, String data, Header[] headers) {
-        CloseableHttpAsyncClient httpClient = HttpAsyncClients.createDefault();
-        httpClient.start();
-        HttpPost request = new HttpPost(url);
-        request.addHeader("Content-Type", "application/json; charset=utf-8");
-        for (int i = 0; i < headers.length; i++) {
-            request.addHeader(headers[i]);
-        }
-        request.setEntity(new StringEntity(data, StandardCharsets.UTF_8));
-        CompletableFuture completableFuture = new CompletableFuture();
-        TimerTask task = new TimerTask() {
-            public void run() {
-                if (!completableFuture.isDone()) {
-                    request.abort();
-                }
-            }
-        };
-        new Timer(true).schedule(task, 12000);
-        httpClient.execute(request, new FutureCallback<HttpResponse>() {
-            public void completed(HttpResponse httpResponse) {
-                try {
-                    completableFuture.complete(EntityUtils.toString(httpResponse.getEntity()));
-                } catch (IOException e) {
-                    completableFuture.completeExceptionally(e);
-                }
-                try {
-                    httpClient.close();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
-
-            public void failed(Exception exception) {
-                completableFuture.completeExceptionally(exception);
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-
-            public void cancelled() {
-                completableFuture.completeExceptionally(new Exception("canceled request"));
-                try {
-                    httpClient.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        });
-        return completableFuture;
+        return post(url, data, headers, getRequestTimeoutMillis());
+    }
+
+    public static CompletableFuture<String> post(String url, String data, Header[] headers, long timeoutMillis) {
+        return getTransport().post(url, data.getBytes(StandardCharsets.UTF_8), headers, String.class, timeoutMillis);
+    }
+
+    /**
+     * Posts a JSON-RPC request and decodes the response once, straight into a {@code JsonRPCResponse<T>}.
+     */
+    public static <T> CompletableFuture<JsonRPCResponse<T>> postJsonRPC(String url, byte[] body, Class<T> resultType) {
+        return postJsonRPC(url, body, new Header[0], resultType, getRequestTimeoutMillis());
+    }
+
+    public static <T> CompletableFuture<JsonRPCResponse<T>> postJsonRPC(String url, byte[] body, Class<T> resultType, long timeoutMillis) {
+        return postJsonRPC(url, body, new Header[0], resultType, timeoutMillis);
+    }
+
+    public static <T> CompletableFuture<JsonRPCResponse<T>> postJsonRPC(String url, byte[] body, Header[] headers, Class<T> resultType) {
+        return postJsonRPC(url, body, headers, resultType, getRequestTimeoutMillis());
+    }
+
+    public static <T> CompletableFuture<JsonRPCResponse<T>> postJsonRPC(String url, byte[] body, Header[] headers, Class<T> resultType, long timeoutMillis) {
+        return post(url, body, headers, TypeToken.getParameterized(JsonRPCResponse.class, resultType).getType(), timeoutMillis);
+    }
+
+    public static <T> CompletableFuture<T> post(String url, byte[] body, Header[] headers, Type responseType) {
+        return post(url, body, headers, responseType, getRequestTimeoutMillis());
+    }
+
+    public static <T> CompletableFuture<T> post(String url, byte[] body, Header[] headers, Type responseType, long timeoutMillis) {
+        return getTransport().post(url, body, headers, responseType, timeoutMillis);
     }
 }
@@ -0,0 +1,125 @@
+package org.torusresearch.torusutils.apis;
+
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts over a single pooled {@link CloseableHttpAsyncClient}, started lazily on the first request.
+ */
+public class ApacheAsyncTransport implements TorusTransport {
+    // one daemon thread tracks the deadlines of all in-flight requests
+    private static final ScheduledThreadPoolExecutor timeoutScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "torus-request-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        timeoutScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    private final HttpClientOptions httpClientOptions;
+    private CloseableHttpAsyncClient httpClient;
+
+    public ApacheAsyncTransport(HttpClientOptions _httpClientOptions) {
+        httpClientOptions = _httpClientOptions;
+    }
+
+    @Override
+    public synchronized void start() {
+        getHttpClient();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (httpClient != null) {
+            CloseableHttpAsyncClient client = httpClient;
+            httpClient = null;
+            client.close();
+        }
+    }
+
+    private synchronized CloseableHttpAsyncClient getHttpClient() {
+        if (httpClient == null || !httpClient.isRunning()) {
+            HttpClientOptions options = httpClientOptions;
+            ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+                long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return serverKeepAlive > 0 ? Math.min(serverKeepAlive, options.getKeepAliveMillis()) : options.getKeepAliveMillis();
+            };
+            httpClient = HttpAsyncClients.custom()
+                    .setMaxConnPerRoute(options.getMaxConnPerRoute())
+                    .setMaxConnTotal(options.getMaxConnTotal())
+                    .setKeepAliveStrategy(keepAliveStrategy)
+                    .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                            .setIoThreadCount(options.getIoThreadCount())
+                            .setConnectTimeout(options.getConnectTimeoutMillis())
+                            .setSoKeepAlive(true)
+                            .build())
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectTimeout(options.getConnectTimeoutMillis())
+                            .build())
+                    .build();
+            httpClient.start();
+        }
+        return httpClient;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> post(String url, byte[] body, Header[] headers, Type responseType, long timeoutMillis) {
+        CloseableHttpAsyncClient httpClient = getHttpClient();
+        HttpPost request = new HttpPost(url);
+        request.addHeader("Content-Type", "application/json; charset=utf-8");
+        for (int i = 0; i < headers.length; i++) {
+            request.addHeader(headers[i]);
+        }
+        request.setEntity(new ByteArrayEntity(body));
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        JsonResponseConsumer<T> responseConsumer = new JsonResponseConsumer<>(APIUtils.getGson(), responseType, httpClientOptions.getMaxResponseBytes());
+        Future<T> execution = httpClient.execute(HttpAsyncMethods.create(request), responseConsumer, new FutureCallback<T>() {
+            public void completed(T response) {
+                completableFuture.complete(response);
+            }
+
+            public void failed(Exception exception) {
+                completableFuture.completeExceptionally(exception);
+            }
+
+            public void cancelled() {
+                completableFuture.completeExceptionally(new Exception("canceled request"));
+            }
+        });
+        ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+            if (!completableFuture.isDone()) {
+                execution.cancel(true);
+                request.abort();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        completableFuture.whenComplete((result, error) -> {
+            timeout.cancel(false);
+            // a caller that no longer needs the response (e.g. Some after reaching its threshold) cancels the future,
+            // abort the exchange so the connection is released instead of waiting for the node to respond
+            if (completableFuture.isCancelled()) {
+                execution.cancel(true);
+                request.abort();
+            }
+        });
+        return completableFuture;
+    }
+}
@@ -0,0 +1,74 @@
+package org.torusresearch.torusutils.apis;
+
+public class HttpClientOptions {
+    private int maxConnPerRoute = 4;
+    private int maxConnTotal = 64;
+    private long keepAliveMillis = 30000;
+    private int connectTimeoutMillis = 5000;
+    private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+    private long requestTimeoutMillis = 12000;
+    private long maxResponseBytes = 1024 * 1024;
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public HttpClientOptions setMaxConnPerRoute(int _maxConnPerRoute) {
+        maxConnPerRoute = _maxConnPerRoute;
+        return this;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public HttpClientOptions setMaxConnTotal(int _maxConnTotal) {
+        maxConnTotal = _maxConnTotal;
+        return this;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public HttpClientOptions setKeepAliveMillis(long _keepAliveMillis) {
+        keepAliveMillis = _keepAliveMillis;
+        return this;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public HttpClientOptions setConnectTimeoutMillis(int _connectTimeoutMillis) {
+        connectTimeoutMillis = _connectTimeoutMillis;
+        return this;
+    }
+
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    public HttpClientOptions setIoThreadCount(int _ioThreadCount) {
+        ioThreadCount = _ioThreadCount;
+        return this;
+    }
+
+    public long getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
+    public HttpClientOptions setRequestTimeoutMillis(long _requestTimeoutMillis) {
+        requestTimeoutMillis = _requestTimeoutMillis;
+        return this;
+    }
+
+    public long getMaxResponseBytes() {
+        return maxResponseBytes;
+    }
+
+    public HttpClientOptions setMaxResponseBytes(long _maxResponseBytes) {
+        maxResponseBytes = _maxResponseBytes;
+        return this;
+    }
+}
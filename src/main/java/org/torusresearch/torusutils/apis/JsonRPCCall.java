@@ -1,8 +1,9 @@
 package org.torusresearch.torusutils.apis;
 
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class JsonRPCCall {
+    private static final AtomicInteger nextId = new AtomicInteger();
     private String jsonrpc;
     private String method;
     private Integer id;
@@ -10,7 +11,14 @@ public class JsonRPCCall {
     public JsonRPCCall(String _method,Object _params) {
         jsonrpc = "2.0";
         method = _method;
-        id = new Random().nextInt(1000);
+        id = nextId.incrementAndGet() & Integer.MAX_VALUE;
+        params = _params;
+    }
+
+    public JsonRPCCall(String _jsonrpc, String _method, Integer _id, Object _params) {
+        jsonrpc = _jsonrpc;
+        method = _method;
+        id = _id;
         params = _params;
     }
 
@@ -1,19 +1,19 @@
 package org.torusresearch.torusutils.apis;
 
-public class JsonRPCResponse {
+public class JsonRPCResponse<T> {
     private JsonRPCError error;
-    private Object result;
+    private T result;
 
 
     public JsonRPCError getError() {
         return error;
     }
 
-    public Object getResult() {
+    public T getResult() {
         return result;
     }
 
-    public JsonRPCResponse(JsonRPCError _error, Object _result) {
+    public JsonRPCResponse(JsonRPCError _error, T _result) {
         error = _error;
         result = _result;
     }
@@ -0,0 +1,74 @@
+package org.torusresearch.torusutils.apis;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Reads a {@code JsonRPCResponse<T>} in a single pass, decoding the result straight into {@code T} with the adapter
+ * registered for it instead of going through an intermediate tree.
+ */
+public class JsonRPCResponseTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != JsonRPCResponse.class) {
+            return null;
+        }
+        Type resultType = type.getType() instanceof ParameterizedType
+                ? ((ParameterizedType) type.getType()).getActualTypeArguments()[0]
+                : Object.class;
+        TypeAdapter<Object> resultAdapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(resultType));
+        TypeAdapter<JsonRPCError> errorAdapter = gson.getAdapter(JsonRPCError.class);
+        return (TypeAdapter<T>) new JsonRPCResponseTypeAdapter(errorAdapter, resultAdapter).nullSafe();
+    }
+
+    private static class JsonRPCResponseTypeAdapter extends TypeAdapter<JsonRPCResponse<Object>> {
+        private final TypeAdapter<JsonRPCError> errorAdapter;
+        private final TypeAdapter<Object> resultAdapter;
+
+        JsonRPCResponseTypeAdapter(TypeAdapter<JsonRPCError> _errorAdapter, TypeAdapter<Object> _resultAdapter) {
+            errorAdapter = _errorAdapter;
+            resultAdapter = _resultAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, JsonRPCResponse<Object> value) throws IOException {
+            out.beginObject();
+            out.name("error");
+            errorAdapter.write(out, value.getError());
+            out.name("result");
+            resultAdapter.write(out, value.getResult());
+            out.endObject();
+        }
+
+        @Override
+        public JsonRPCResponse<Object> read(JsonReader in) throws IOException {
+            JsonRPCError error = null;
+            Object result = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else if (name.equals("error")) {
+                    error = errorAdapter.read(in);
+                } else if (name.equals("result")) {
+                    result = resultAdapter.read(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new JsonRPCResponse<>(error, result);
+        }
+    }
+}
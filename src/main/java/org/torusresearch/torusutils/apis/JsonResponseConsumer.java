@@ -0,0 +1,94 @@
+package org.torusresearch.torusutils.apis;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import org.apache.http.ContentTooLongException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentInputStream;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Collects the response body from the I/O reactor and decodes it with a {@link JsonReader} over the content buffer,
+ * without materializing the body as a String. Bodies larger than {@code maxResponseBytes} are rejected as soon as
+ * their announced length or the received byte count exceeds the limit.
+ * <p>
+ * This deliberately buffers the whole body, up to {@code maxResponseBytes}, before decoding it. Gson only pulls from
+ * a blocking reader, so decoding while content arrives would need a thread blocked on a pipe for every response,
+ * and the I/O reactor threads must not block. Node responses are a few kilobytes, so buffering them costs little.
+ */
+class JsonResponseConsumer<T> extends AbstractAsyncResponseConsumer<T> {
+    private final Gson gson;
+    private final Type responseType;
+    private final long maxResponseBytes;
+    private SimpleInputBuffer buffer;
+    private Charset charset;
+    private long received;
+
+    JsonResponseConsumer(Gson _gson, Type _responseType, long _maxResponseBytes) {
+        gson = _gson;
+        responseType = _responseType;
+        maxResponseBytes = _maxResponseBytes;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        long contentLength = entity.getContentLength();
+        if (contentLength > maxResponseBytes) {
+            throw new ContentTooLongException("Response of " + contentLength + " bytes exceeds limit of " + maxResponseBytes);
+        }
+        charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        buffer = new SimpleInputBuffer(contentLength > 0 ? (int) contentLength : 4096, HeapByteBufferAllocator.INSTANCE);
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        int read = buffer.consumeContent(decoder);
+        if (read > 0) {
+            received += read;
+            if (received > maxResponseBytes) {
+                throw new ContentTooLongException("Response exceeds limit of " + maxResponseBytes + " bytes");
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected T buildResult(HttpContext context) throws Exception {
+        if (buffer == null) {
+            return null;
+        }
+        InputStreamReader reader = new InputStreamReader(new ContentInputStream(buffer), charset);
+        if (responseType == String.class) {
+            StringBuilder body = new StringBuilder((int) received);
+            char[] chunk = new char[1024];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                body.append(chunk, 0, read);
+            }
+            return (T) body.toString();
+        }
+        return gson.fromJson(new JsonReader(reader), responseType);
+    }
+
+    @Override
+    protected void releaseResources() {
+        buffer = null;
+    }
+}
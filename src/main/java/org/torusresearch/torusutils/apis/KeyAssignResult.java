@@ -2,6 +2,11 @@ package org.torusresearch.torusutils.apis;
 
 public class KeyAssignResult {
     private KeyAssignment[] keys;
+
+    public KeyAssignResult(KeyAssignment[] _keys) {
+        keys = _keys;
+    }
+
     public KeyAssignment[] getKeys() {
         return keys;
     }
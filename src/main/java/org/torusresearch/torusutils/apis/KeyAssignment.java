@@ -10,6 +10,15 @@ public class KeyAssignment {
     private String Share;
     private ShareMetadata Metadata;
 
+    public KeyAssignment(String _Index, PubKey _PublicKey, Integer _Threshold, HashMap<String, String[]> _Verifiers, String _Share, ShareMetadata _Metadata) {
+        Index = _Index;
+        PublicKey = _PublicKey;
+        Threshold = _Threshold;
+        Verifiers = _Verifiers;
+        Share = _Share;
+        Metadata = _Metadata;
+    }
+
     public String getIndex() {
         return Index;
     }
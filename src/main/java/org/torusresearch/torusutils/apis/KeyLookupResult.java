@@ -1,10 +1,10 @@
 package org.torusresearch.torusutils.apis;
 
 public class KeyLookupResult {
-    private String keyResult;
+    private VerifierLookupRequestResult keyResult;
     private String errResult;
 
-    public String getKeyResult() {
+    public VerifierLookupRequestResult getKeyResult() {
         return keyResult;
     }
 
@@ -12,7 +12,7 @@ public class KeyLookupResult {
         return errResult;
     }
 
-    public KeyLookupResult(String _keyResult, String _errResult) {
+    public KeyLookupResult(VerifierLookupRequestResult _keyResult, String _errResult) {
         keyResult = _keyResult;
         errResult = _errResult;
     }
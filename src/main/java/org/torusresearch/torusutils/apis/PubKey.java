@@ -1,5 +1,7 @@
 package org.torusresearch.torusutils.apis;
 
+import java.util.Objects;
+
 public class PubKey {
     private String X;
     private String Y;
@@ -15,4 +17,18 @@ public class PubKey {
     public String getY() {
         return Y;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PubKey that = (PubKey) o;
+        return Objects.equals(X, that.X) &&
+                Objects.equals(Y, that.Y);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(X, Y);
+    }
 }
@@ -6,6 +6,13 @@ public class ShareMetadata {
     private String mac;
     private String mode;
 
+    public ShareMetadata(String _iv, String _ephemPublicKey, String _mac, String _mode) {
+        iv = _iv;
+        ephemPublicKey = _ephemPublicKey;
+        mac = _mac;
+        mode = _mode;
+    }
+
     public String getIv() {
         return iv;
     }
@@ -7,7 +7,17 @@ public class ShareRequestParams {
         item = _item;
         encrypted = "yes";
     }
+
+    public ShareRequestParams(ShareRequestItem[] _item, String _encrypted) {
+        item = _item;
+        encrypted = _encrypted;
+    }
+
     public ShareRequestItem[] getItem() {
         return item;
     }
+
+    public String getEncrypted() {
+        return encrypted;
+    }
 }
@@ -0,0 +1,23 @@
+package org.torusresearch.torusutils.apis;
+
+import org.apache.http.Header;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries requests from the library to Torus nodes (and the signer). {@link APIUtils} routes every post through the
+ * transport set with {@link APIUtils#setTransport(TorusTransport)}, which defaults to {@link ApacheAsyncTransport}.
+ * <p>
+ * Implementations decode the response body into {@code responseType} with {@link APIUtils#getGson()}, fail the
+ * future once {@code timeoutMillis} has passed, and drop the request when the returned future is cancelled.
+ */
+public interface TorusTransport {
+    <T> CompletableFuture<T> post(String url, byte[] body, Header[] headers, Type responseType, long timeoutMillis);
+
+    default void start() {
+    }
+
+    void close() throws IOException;
+}
@@ -1,5 +1,7 @@
 package org.torusresearch.torusutils.apis;
 
+import java.util.Objects;
+
 public class VerifierLookupItem {
     private String key_index;
     private String pub_key_X;
@@ -28,4 +30,19 @@ public class VerifierLookupItem {
         address = _address;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifierLookupItem that = (VerifierLookupItem) o;
+        return Objects.equals(key_index, that.key_index) &&
+                Objects.equals(pub_key_X, that.pub_key_X) &&
+                Objects.equals(pub_key_Y, that.pub_key_Y) &&
+                Objects.equals(address, that.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key_index, pub_key_X, pub_key_Y, address);
+    }
 }
@@ -1,5 +1,7 @@
 package org.torusresearch.torusutils.apis;
 
+import java.util.Arrays;
+
 public class VerifierLookupRequestResult {
     private VerifierLookupItem[] keys;
     public VerifierLookupRequestResult(VerifierLookupItem[] _keys) {
@@ -8,4 +10,17 @@ public class VerifierLookupRequestResult {
     public VerifierLookupItem[] getKeys() {
         return keys;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifierLookupRequestResult that = (VerifierLookupRequestResult) o;
+        return Arrays.equals(keys, that.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(keys);
+    }
 }
@@ -0,0 +1,109 @@
+package org.torusresearch.torusutils.apis.inmemory;
+
+import com.google.gson.stream.JsonReader;
+import org.apache.http.Header;
+import org.torusresearch.torusutils.apis.APIUtils;
+import org.torusresearch.torusutils.apis.TorusTransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers requests to {@link SimulatedEndpoint}s in the same process, after each endpoint's latency, so that the
+ * protocol can be exercised without any network access.
+ */
+public class InMemoryTransport implements TorusTransport {
+    private final Map<String, SimulatedEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    public InMemoryTransport(int workerThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "torus-inmemory-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public InMemoryTransport() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public void register(String url, SimulatedEndpoint endpoint) {
+        endpoints.put(url, endpoint);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> post(String url, byte[] body, Header[] headers, Type responseType, long timeoutMillis) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        SimulatedEndpoint endpoint = endpoints.get(url);
+        if (endpoint == null) {
+            completableFuture.completeExceptionally(new UnknownHostException(url));
+            return completableFuture;
+        }
+        // tracked before scheduling, so that a close racing with this post still fails it
+        inFlight.add(completableFuture);
+        ScheduledFuture<?> delivery;
+        ScheduledFuture<?> timeout;
+        try {
+            delivery = executor.schedule(() -> {
+                if (completableFuture.isDone()) {
+                    return;
+                }
+                try {
+                    completableFuture.complete(decode(endpoint.handle(body, headers), responseType));
+                } catch (Exception e) {
+                    completableFuture.completeExceptionally(e);
+                }
+            }, endpoint.getLatencyMillis(), TimeUnit.MILLISECONDS);
+            timeout = executor.schedule(() -> {
+                completableFuture.completeExceptionally(new TimeoutException("request to " + url + " timed out"));
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed, fail the request the way the http transport does rather than throwing at the caller
+            inFlight.remove(completableFuture);
+            completableFuture.completeExceptionally(e);
+            return completableFuture;
+        }
+        completableFuture.whenComplete((result, error) -> {
+            inFlight.remove(completableFuture);
+            timeout.cancel(false);
+            delivery.cancel(false);
+        });
+        return completableFuture;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T decode(byte[] response, Type responseType) {
+        if (responseType == String.class) {
+            return (T) new String(response, StandardCharsets.UTF_8);
+        }
+        return APIUtils.getGson().fromJson(new JsonReader(new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8)), responseType);
+    }
+
+    /**
+     * Stops delivering requests. Requests in flight fail, and so do later posts.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (CompletableFuture<?> request : inFlight) {
+            request.completeExceptionally(new RejectedExecutionException("transport closed"));
+        }
+    }
+}
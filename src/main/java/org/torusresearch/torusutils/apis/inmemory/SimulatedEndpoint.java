@@ -0,0 +1,12 @@
+package org.torusresearch.torusutils.apis.inmemory;
+
+import org.apache.http.Header;
+
+public interface SimulatedEndpoint {
+    /**
+     * Handles one request body and returns the response body. Throwing fails the request as a transport error would.
+     */
+    byte[] handle(byte[] body, Header[] headers) throws Exception;
+
+    long getLatencyMillis();
+}
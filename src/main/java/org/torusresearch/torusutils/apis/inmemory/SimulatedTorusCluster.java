@@ -0,0 +1,125 @@
+package org.torusresearch.torusutils.apis.inmemory;
+
+import org.apache.http.Header;
+import org.torusresearch.torusutils.apis.APIUtils;
+import org.torusresearch.torusutils.apis.SignerResponse;
+import org.torusresearch.torusutils.types.TorusNodePub;
+import org.web3j.crypto.Hash;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A set of {@link SimulatedTorusNode}s sharing one key store, plus the signer endpoint used by key assignment.
+ * Keys are dealt with a random polynomial of degree {@code k - 1} so that any k node shares interpolate to the
+ * private key, as on a live network.
+ */
+public class SimulatedTorusCluster {
+    public static final String SIGNER_URL = "https://signer.tor.us/api/sign";
+
+    private static final BigInteger secp256k1N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, BigInteger[]> polynomials = new ConcurrentHashMap<>();
+    private final SimulatedTorusNode[] nodes;
+    private final String[] endpoints;
+    private final int t;
+    private final int k;
+
+    public SimulatedTorusCluster(int nodeCount) {
+        t = Math.floorDiv(nodeCount, 4);
+        k = t * 2 + 1;
+        nodes = new SimulatedTorusNode[nodeCount];
+        endpoints = new String[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            endpoints[i] = "https://node-" + (i + 1) + ".torus.inmemory/jrpc";
+            nodes[i] = new SimulatedTorusNode(this, BigInteger.valueOf(i + 1));
+        }
+    }
+
+    public String[] getEndpoints() {
+        return endpoints;
+    }
+
+    public BigInteger[] getIndexes() {
+        BigInteger[] indexes = new BigInteger[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            indexes[i] = nodes[i].getIndex();
+        }
+        return indexes;
+    }
+
+    public TorusNodePub[] getNodePubs() {
+        TorusNodePub[] nodePubs = new TorusNodePub[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodePubs[i] = nodes[i].getNodePub();
+        }
+        return nodePubs;
+    }
+
+    public SimulatedTorusNode getNode(int i) {
+        return nodes[i];
+    }
+
+    public int getThreshold() {
+        return k;
+    }
+
+    public int getMaxMalicious() {
+        return t;
+    }
+
+    /**
+     * Builds a transport that routes the cluster's endpoints and the signer to this cluster.
+     */
+    public InMemoryTransport createTransport() {
+        InMemoryTransport transport = new InMemoryTransport();
+        for (int i = 0; i < nodes.length; i++) {
+            transport.register(endpoints[i], nodes[i]);
+        }
+        transport.register(SIGNER_URL, new SimulatedEndpoint() {
+            @Override
+            public byte[] handle(byte[] body, Header[] headers) {
+                String nonce = new BigInteger(64, random).toString(16);
+                String signature = Hash.sha3(new String(body, StandardCharsets.UTF_8) + nonce);
+                SignerResponse signerResponse = new SignerResponse(String.valueOf(System.currentTimeMillis() / 1000), nonce, signature);
+                return APIUtils.getGson().toJson(signerResponse).getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public long getLatencyMillis() {
+                return 0;
+            }
+        });
+        return transport;
+    }
+
+    BigInteger[] getPolynomial(String verifier, String verifierId) {
+        return polynomials.get(verifier + "\u0000" + verifierId);
+    }
+
+    BigInteger[] assignKey(String verifier, String verifierId) {
+        return polynomials.computeIfAbsent(verifier + "\u0000" + verifierId, key -> {
+            BigInteger[] coefficients = new BigInteger[k];
+            for (int i = 0; i < k; i++) {
+                coefficients[i] = new BigInteger(256, random).mod(secp256k1N);
+            }
+            return coefficients;
+        });
+    }
+
+    static BigInteger evaluate(BigInteger[] coefficients, BigInteger x) {
+        BigInteger result = BigInteger.ZERO;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            result = result.multiply(x).add(coefficients[i]).mod(secp256k1N);
+        }
+        return result;
+    }
+
+    SecureRandom getRandom() {
+        return random;
+    }
+}
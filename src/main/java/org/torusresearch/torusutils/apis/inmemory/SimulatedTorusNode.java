@@ -0,0 +1,223 @@
+package org.torusresearch.torusutils.apis.inmemory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.apache.http.Header;
+import org.torusresearch.torusutils.apis.*;
+import org.torusresearch.torusutils.helpers.AES256CBC;
+import org.torusresearch.torusutils.helpers.Base64;
+import org.torusresearch.torusutils.helpers.ECPointArithmetic;
+import org.torusresearch.torusutils.helpers.SHA512;
+import org.torusresearch.torusutils.helpers.Secp256k1Generator;
+import org.torusresearch.torusutils.types.TorusNodePub;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.Keys;
+import org.web3j.utils.Numeric;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.spec.ECFieldFp;
+import java.security.spec.EllipticCurve;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One node of a {@link SimulatedTorusCluster}, answering {@code VerifierLookupRequest}, {@code KeyAssign},
+ * {@code CommitmentRequest} and {@code ShareRequest} the way a Torus node does, including the ECIES encryption of the
+ * returned share. Latency, outages and malicious shares can be configured per node.
+ */
+public class SimulatedTorusNode implements SimulatedEndpoint {
+    private static final EllipticCurve secp256k1 = new EllipticCurve(
+            new ECFieldFp(new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16)),
+            BigInteger.ZERO,
+            BigInteger.valueOf(7));
+
+    private final SimulatedTorusCluster cluster;
+    private final BigInteger index;
+    private final BigInteger nodePrivateKey;
+    private final String nodePubX;
+    private final String nodePubY;
+    // temporary public keys committed to by token commitment
+    private final Map<String, String[]> commitments = new ConcurrentHashMap<>();
+    private volatile long latencyMillis = 0;
+    private volatile boolean offline = false;
+    private volatile boolean malicious = false;
+
+    SimulatedTorusNode(SimulatedTorusCluster _cluster, BigInteger _index) {
+        cluster = _cluster;
+        index = _index;
+        nodePrivateKey = new BigInteger(255, cluster.getRandom()).add(BigInteger.ONE);
+        BigInteger nodePub = Secp256k1Generator.publicKeyFromPrivate(nodePrivateKey);
+        String nodePubHex = Numeric.toHexStringNoPrefixZeroPadded(nodePub, 128);
+        nodePubX = nodePubHex.substring(0, 64);
+        nodePubY = nodePubHex.substring(64);
+    }
+
+    public BigInteger getIndex() {
+        return index;
+    }
+
+    public TorusNodePub getNodePub() {
+        return new TorusNodePub(nodePubX, nodePubY);
+    }
+
+    @Override
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long _latencyMillis) {
+        latencyMillis = _latencyMillis;
+    }
+
+    /**
+     * An offline node fails every request as if the connection was refused.
+     */
+    public void setOffline(boolean _offline) {
+        offline = _offline;
+    }
+
+    /**
+     * A malicious node answers every request but returns a share that does not lie on the key's polynomial.
+     */
+    public void setMalicious(boolean _malicious) {
+        malicious = _malicious;
+    }
+
+    @Override
+    public byte[] handle(byte[] body, Header[] headers) throws Exception {
+        if (offline) {
+            throw new IOException("Connection refused");
+        }
+        Gson gson = APIUtils.getGson();
+        JsonRPCCall call = gson.fromJson(new String(body, StandardCharsets.UTF_8), JsonRPCCall.class);
+        JsonElement params = (JsonElement) call.getParams();
+        JsonRPCResponse<?> response;
+        switch (call.getMethod()) {
+            case "VerifierLookupRequest":
+                response = verifierLookup(gson.fromJson(params, VerifierLookupRequestParams.class));
+                break;
+            case "KeyAssign":
+                response = keyAssign(gson.fromJson(params, KeyAssignParams.class), headers);
+                break;
+            case "CommitmentRequest":
+                response = commitment(gson.fromJson(params, CommitmentRequestParams.class));
+                break;
+            case "ShareRequest":
+                response = share(gson.fromJson(params, ShareRequestParams.class));
+                break;
+            default:
+                response = error(-32601, "Method not found", call.getMethod());
+        }
+        return gson.toJson(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private JsonRPCResponse<?> verifierLookup(VerifierLookupRequestParams params) {
+        BigInteger[] polynomial = cluster.getPolynomial(params.getVerifier(), params.getVerifier_id());
+        if (polynomial == null) {
+            return error(-32602, "Input error", "Verifier + VerifierID has not yet been assigned");
+        }
+        return new JsonRPCResponse<>(null, lookupResult(polynomial));
+    }
+
+    private JsonRPCResponse<?> keyAssign(KeyAssignParams params, Header[] headers) {
+        boolean signed = false;
+        for (Header header : headers) {
+            if (header.getName().equals("torus-signature") && header.getValue() != null) {
+                signed = true;
+            }
+        }
+        if (!signed) {
+            return error(-32602, "Input error", "Missing signer signature");
+        }
+        return new JsonRPCResponse<>(null, lookupResult(cluster.assignKey(params.getVerifier(), params.getVerifier_id())));
+    }
+
+    private JsonRPCResponse<?> commitment(CommitmentRequestParams params) {
+        commitments.put(params.getTokencommitment(), new String[]{params.getTemppubx(), params.getTemppuby()});
+        String data = String.join(",", params.getMessageprefix(), params.getTokencommitment(), params.getTemppubx(), params.getTemppuby(), params.getTimestamp(), params.getVerifieridentifier());
+        return new JsonRPCResponse<>(null, new NodeSignature(sign(data), data, nodePubX, nodePubY));
+    }
+
+    private JsonRPCResponse<?> share(ShareRequestParams params) throws Exception {
+        if (params.getItem() == null || params.getItem().length == 0) {
+            return error(-32602, "Input error", "Missing share request item");
+        }
+        ShareRequestItem item = params.getItem()[0];
+        String tokenCommitment = Hash.sha3String(item.getIdtoken()).substring(2);
+        String[] tempPub = commitments.get(tokenCommitment);
+        if (tempPub == null) {
+            return error(-32602, "Input error", "No commitment found for token");
+        }
+        int validSignatures = 0;
+        for (NodeSignature nodeSignature : item.getNodesignatures()) {
+            if (nodeSignature.getData() != null && nodeSignature.getData().contains(tokenCommitment)) {
+                validSignatures++;
+            }
+        }
+        if (validSignatures < cluster.getThreshold() + cluster.getMaxMalicious()) {
+            return error(-32602, "Input error", "Not enough node signatures");
+        }
+        BigInteger[] polynomial = cluster.getPolynomial(item.getVerifieridentifier(), item.getVerifier_id());
+        if (polynomial == null) {
+            return error(-32602, "Input error", "Verifier + VerifierID has not yet been assigned");
+        }
+        BigInteger share = SimulatedTorusCluster.evaluate(polynomial, index);
+        if (malicious) {
+            share = share.add(BigInteger.ONE);
+        }
+        String[] publicKey = publicKey(polynomial[0]);
+        HashMap<String, String[]> verifiers = new HashMap<>();
+        verifiers.put(item.getVerifieridentifier(), new String[]{item.getVerifier_id()});
+        KeyAssignment keyAssignment = encryptShare(share, tempPub[0], tempPub[1], new PubKey(publicKey[0], publicKey[1]), verifiers);
+        return new JsonRPCResponse<>(null, new KeyAssignResult(new KeyAssignment[]{keyAssignment}));
+    }
+
+    private KeyAssignment encryptShare(BigInteger share, String tempPubX, String tempPubY, PubKey publicKey, HashMap<String, String[]> verifiers) throws Exception {
+        BigInteger ephemPrivateKey = new BigInteger(255, cluster.getRandom()).add(BigInteger.ONE);
+        byte[] ephemPublicKey = Numeric.hexStringToByteArray("04" + Numeric.toHexStringNoPrefixZeroPadded(Secp256k1Generator.publicKeyFromPrivate(ephemPrivateKey), 128));
+        ECPointArithmetic tempPub = new ECPointArithmetic(secp256k1, new BigInteger(tempPubX, 16), new BigInteger(tempPubY, 16), null);
+        // the shared secret is fed to the KDF without leading zero bytes, as clients expect
+        byte[] hash = SHA512.digest(AES256CBC.toByteArray(tempPub.multiply(ephemPrivateKey).getX()));
+        byte[] iv = new byte[16];
+        cluster.getRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Arrays.copyOfRange(hash, 0, 32), "AES"), new IvParameterSpec(iv));
+        byte[] ciphertext = cipher.doFinal(Numeric.toBytesPadded(share, 32));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Arrays.copyOfRange(hash, 32, 64), "HmacSHA256"));
+        mac.update(iv);
+        mac.update(ephemPublicKey);
+        mac.update(ciphertext);
+        ShareMetadata metadata = new ShareMetadata(Numeric.toHexStringNoPrefix(iv), Numeric.toHexStringNoPrefix(ephemPublicKey), Numeric.toHexStringNoPrefix(mac.doFinal()), "AES256");
+        // shares are sent as the hex encoded ciphertext, base64 encoded again
+        String encodedShare = Base64.encodeBytes(Numeric.toHexStringNoPrefix(ciphertext).getBytes(StandardCharsets.UTF_8));
+        return new KeyAssignment(index.toString(16), publicKey, 1, verifiers, encodedShare, metadata);
+    }
+
+    private VerifierLookupRequestResult lookupResult(BigInteger[] polynomial) {
+        String[] publicKey = publicKey(polynomial[0]);
+        String address = Keys.toChecksumAddress(Keys.getAddress(new BigInteger(publicKey[0] + publicKey[1], 16)));
+        return new VerifierLookupRequestResult(new VerifierLookupItem[]{new VerifierLookupItem("1", publicKey[0], publicKey[1], address)});
+    }
+
+    private static String[] publicKey(BigInteger privateKey) {
+        String publicKeyHex = Numeric.toHexStringNoPrefixZeroPadded(Secp256k1Generator.publicKeyFromPrivate(privateKey), 128);
+        return new String[]{publicKeyHex.substring(0, 64), publicKeyHex.substring(64)};
+    }
+
+    private String sign(String data) {
+        return Hash.sha3String(nodePrivateKey.toString(16) + data).substring(2);
+    }
+
+    private static JsonRPCResponse<?> error(int code, String message, String data) {
+        return new JsonRPCResponse<>(new JsonRPCError(code, message, data), null);
+    }
+}
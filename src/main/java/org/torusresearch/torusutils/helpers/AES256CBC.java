@@ -3,22 +3,39 @@ package org.torusresearch.torusutils.helpers;
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.spec.AlgorithmParameterSpec;
-import java.security.spec.ECFieldFp;
-import java.security.spec.EllipticCurve;
 import java.util.Arrays;
 
 public class AES256CBC {
-    private BigInteger AES_ENCRYPTION_KEY;
-    private BigInteger ENCRYPTION_IV;
+    // Cipher is not thread safe, so each thread keeps its own
+    private static final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/CBC/PKCS5Padding");
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    // kept as raw bytes, so a key or IV starting with zero bytes keeps its length
+    private final byte[] AES_ENCRYPTION_KEY;
+    private final byte[] ENCRYPTION_IV;
 
     public AES256CBC(String privateKeyHex, String ephemPublicKeyHex, String encryptionIvHex) {
-        byte[] hash = SHA512.digest(toByteArray(ecdh(privateKeyHex, ephemPublicKeyHex)));
-        byte[] encKeyBytes = Arrays.copyOfRange(hash, 0, 32);
-        AES_ENCRYPTION_KEY = new BigInteger(encKeyBytes);
-        ENCRYPTION_IV = new BigInteger(encryptionIvHex, 16);
+        byte[] sharedSecret = ecdh(privateKeyHex, ephemPublicKeyHex);
+        int start = EciesDecryptor.kdfOffset(sharedSecret);
+        byte[] hash = SHA512.digest(Arrays.copyOfRange(sharedSecret, start, sharedSecret.length));
+        AES_ENCRYPTION_KEY = Arrays.copyOfRange(hash, 0, 32);
+        ENCRYPTION_IV = HexCodec.decode(encryptionIvHex);
+    }
+
+    public AES256CBC(byte[] encryptionKey, byte[] encryptionIv) {
+        AES_ENCRYPTION_KEY = encryptionKey.clone();
+        ENCRYPTION_IV = encryptionIv.clone();
     }
 
     /**
@@ -40,7 +57,7 @@ public class AES256CBC {
 
     public String encrypt(byte[] src) {
         try {
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            Cipher cipher = ciphers.get();
             cipher.init(Cipher.ENCRYPT_MODE, makeKey(), makeIv());
             return Base64.encodeBytes(cipher.doFinal(src));
         } catch (Exception e) {
@@ -49,33 +66,41 @@ public class AES256CBC {
     }
 
     public byte[] decrypt(String src) {
+        try {
+            return decrypt(Base64.decode(src));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public byte[] decrypt(byte[] src) {
         byte[] decrypted;
         try {
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            Cipher cipher = ciphers.get();
             cipher.init(Cipher.DECRYPT_MODE, makeKey(), makeIv());
-            decrypted = cipher.doFinal(Base64.decode(src));
+            decrypted = cipher.doFinal(src);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
         return decrypted;
     }
 
-    private BigInteger ecdh(String privateKeyHex, String ephemPublicKeyHex) {
-        String affineX = ephemPublicKeyHex.substring(2, 66);
-        String affineY = ephemPublicKeyHex.substring(66);
-
-        ECPointArithmetic ecPoint = new ECPointArithmetic(new EllipticCurve(
-                new ECFieldFp(new BigInteger("115792089237316195423570985008687907853269984665640564039457584007908834671663")),
-                new BigInteger("0"),
-                new BigInteger("7")), new BigInteger(affineX, 16), new BigInteger(affineY, 16), null);
-        return ecPoint.multiply(new BigInteger(privateKeyHex, 16)).getX();
+    // the 32 byte x coordinate of the shared point
+    private byte[] ecdh(String privateKeyHex, String ephemPublicKeyHex) {
+        byte[] privateKey = new byte[HexCodec.SCALAR_BYTES];
+        HexCodec.decode(privateKeyHex, privateKey, 0, HexCodec.SCALAR_BYTES);
+        try {
+            return new EciesDecryptor(new BigInteger(1, privateKey)).sharedSecrets(new byte[][]{HexCodec.decode(ephemPublicKeyHex)})[0];
+        } catch (InvalidKeyException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private Key makeKey() {
-        return new SecretKeySpec(toByteArray(AES_ENCRYPTION_KEY), "AES");
+        return new SecretKeySpec(AES_ENCRYPTION_KEY, "AES");
     }
 
     private AlgorithmParameterSpec makeIv() {
-        return new IvParameterSpec(toByteArray(ENCRYPTION_IV));
+        return new IvParameterSpec(ENCRYPTION_IV);
     }
 }
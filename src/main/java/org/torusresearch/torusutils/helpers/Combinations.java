@@ -0,0 +1,105 @@
+package org.torusresearch.torusutils.helpers;
+
+/**
+ * Lazily enumerates the k-element subsets of {0, ..., n - 1} in revolving door order (Knuth, TAOCP 7.2.1.3,
+ * Algorithm R): each subset differs from the previous one by exchanging a single element. The current subset is kept
+ * sorted in one int array that is updated in place, so stepping allocates nothing.
+ * <pre>
+ * Combinations combinations = new Combinations(n, k);
+ * while (combinations.next()) {
+ *     int[] members = combinations.current();
+ * }
+ * </pre>
+ * Subsets with the same largest element are enumerated contiguously, in increasing order of that element.
+ */
+public class Combinations {
+    private final int n;
+    private final int k;
+    // c[0] < c[1] < ... < c[k - 1], Knuth's c_1 ... c_t
+    private final int[] c;
+    private boolean started = false;
+    private boolean done;
+
+    public Combinations(int _n, int _k) {
+        n = _n;
+        k = _k;
+        c = new int[Math.max(k, 0)];
+        done = k < 0 || k > n;
+    }
+
+    /**
+     * The current subset, ascending. The array is reused by {@link #next()} and must not be modified.
+     */
+    public int[] current() {
+        return c;
+    }
+
+    /**
+     * Advances to the next subset, or returns false once every subset has been visited.
+     */
+    public boolean next() {
+        if (done) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            for (int j = 0; j < k; j++) {
+                c[j] = j;
+            }
+            return true;
+        }
+        if (k == 0 || k == n) {
+            done = true;
+            return false;
+        }
+        if (k == 1) {
+            if (c[0] + 1 < n) {
+                c[0]++;
+                return true;
+            }
+            done = true;
+            return false;
+        }
+        // R3, the easy cases that only move c_1
+        int j = 2;
+        boolean decrease;
+        if ((k & 1) == 1) {
+            if (c[0] + 1 < c[1]) {
+                c[0]++;
+                return true;
+            }
+            decrease = true;
+        } else {
+            if (c[0] > 0) {
+                c[0]--;
+                return true;
+            }
+            decrease = false;
+        }
+        // R4 (try to decrease c_j) and R5 (try to increase c_j), with Knuth's 1-based c_j at c[j - 1]
+        while (j <= k) {
+            if (decrease) {
+                if (c[j - 1] >= j) {
+                    c[j - 1] = c[j - 2];
+                    c[j - 2] = j - 2;
+                    return true;
+                }
+            } else {
+                if (c[j - 1] + 1 < at(j)) {
+                    c[j - 2] = c[j - 1];
+                    c[j - 1]++;
+                    return true;
+                }
+            }
+            j++;
+            decrease = !decrease;
+        }
+        done = true;
+        return false;
+    }
+
+    // c[i], with the sentinel c_(k + 1) = n
+    private int at(int i) {
+        return i == k ? n : c[i];
+    }
+}
@@ -5,46 +5,56 @@ import java.security.spec.ECFieldFp;
 import java.security.spec.EllipticCurve;
 
 // http://stackoverflow.com/questions/11190860/point-multiplication-in-elliptic-curvves
+// Coordinates are secp256k1 field elements (see Secp256k1Field), so only that curve is accepted.
 public class ECPointArithmetic {
     EllipticCurve ec;
     ECFieldFp ef;
-    private BigInteger x;
-    private BigInteger y;
-    private BigInteger z;
-    private BigInteger zinv;
-    private BigInteger one = BigInteger.ONE;
-    private BigInteger zero = BigInteger.ZERO;
-    private boolean infinity;
+    // projective coordinates, the point at infinity has z == 0
+    private final int[] x;
+    private final int[] y;
+    private final int[] z;
+    private BigInteger affineX;
+    private BigInteger affineY;
 
     public ECPointArithmetic(EllipticCurve ec, BigInteger x, BigInteger y, BigInteger z) {
+        this(ec, Secp256k1Field.fromBigInteger(x), Secp256k1Field.fromBigInteger(y), Secp256k1Field.fromBigInteger(z == null ? BigInteger.ONE : z));
+        if (x.signum() == 0 && y.signum() == 0) {
+            Secp256k1Field.setInt(0, this.z);
+        }
+    }
+
+    private ECPointArithmetic(EllipticCurve ec, int[] x, int[] y, int[] z) {
+        if (!(ec.getField() instanceof ECFieldFp) || !((ECFieldFp) ec.getField()).getP().equals(Secp256k1Field.P) || ec.getA().signum() != 0) {
+            throw new IllegalArgumentException("Only the secp256k1 curve is supported");
+        }
         this.ec = ec;
+        this.ef = (ECFieldFp) ec.getField();
         this.x = x;
         this.y = y;
-        this.ef = (ECFieldFp) ec.getField();
-
-        // Projective coordinates: either zinv == null or z * zinv == 1
-        // z and zinv are just BigIntegers, not fieldElements
-        if (z == null) {
-            this.z = BigInteger.ONE;
-        } else {
-            this.z = z;
-        }
-        this.zinv = null;
-        infinity = false;
+        this.z = z;
     }
 
     public BigInteger getX() {
-        if (this.zinv == null) {
-            this.zinv = this.z.modInverse(this.ef.getP());
-        }
-        return this.x.multiply(this.zinv).mod(this.ef.getP());
+        normalize();
+        return this.affineX;
     }
 
     public BigInteger getY() {
-        if (this.zinv == null) {
-            this.zinv = this.z.modInverse(this.ef.getP());
+        normalize();
+        return this.affineY;
+    }
+
+    private void normalize() {
+        if (this.affineX == null) {
+            int[] tt = Secp256k1Field.createExt();
+            int[] zinv = Secp256k1Field.create();
+            int[] t = Secp256k1Field.create();
+            Secp256k1Field.invert(this.z, zinv, tt);
+            Secp256k1Field.mul(this.y, zinv, t, tt);
+            this.affineY = Secp256k1Field.toBigInteger(t);
+            Secp256k1Field.mul(this.x, zinv, t, tt);
+            this.affineX = Secp256k1Field.toBigInteger(t);
         }
-        return this.y.multiply(this.zinv).mod(this.ef.getP());
     }
 
     public boolean pointEquals(ECPointArithmetic other) {
@@ -55,144 +65,181 @@ public class ECPointArithmetic {
             return other.isInfinity();
         }
         if (other.isInfinity()) {
-            return this.isInfinity();
+            return false;
         }
-        BigInteger u, v;
-        // u = Y2 * Z1 - Y1 * Z2
-        u = other.y.multiply(this.z).subtract(this.y.multiply(other.z)).mod(this.ef.getP());
-        if (!u.equals(BigInteger.ZERO)) {
+        int[] tt = Secp256k1Field.createExt();
+        int[] a = Secp256k1Field.create();
+        int[] b = Secp256k1Field.create();
+        // Y2 * Z1 == Y1 * Z2
+        Secp256k1Field.mul(other.y, this.z, a, tt);
+        Secp256k1Field.mul(this.y, other.z, b, tt);
+        if (!Secp256k1Field.equals(a, b)) {
             return false;
         }
-        // v = X2 * Z1 - X1 * Z2
-        v = other.x.multiply(this.z).subtract(this.x.multiply(other.z)).mod(this.ef.getP());
-        return v.equals(BigInteger.ZERO);
+        // X2 * Z1 == X1 * Z2
+        Secp256k1Field.mul(other.x, this.z, a, tt);
+        Secp256k1Field.mul(this.x, other.z, b, tt);
+        return Secp256k1Field.equals(a, b);
     }
 
     public boolean isInfinity() {
-
-        if ((this.x == zero) && (this.y == zero)) {
-            return true;
-        }
-        return this.z.equals(BigInteger.ZERO) && !this.y.equals(BigInteger.ZERO);
-
+        return Secp256k1Field.isZero(this.z);
     }
 
     public ECPointArithmetic negate() {
-        return new ECPointArithmetic(this.ec, this.x, this.y.negate(), this.z);
+        int[] ny = Secp256k1Field.create();
+        Secp256k1Field.negate(this.y, ny);
+        return new ECPointArithmetic(this.ec, this.x.clone(), ny, this.z.clone());
     }
 
     public ECPointArithmetic add(ECPointArithmetic b) {
-        if (this.isInfinity()) {
-            return b;
-        }
-        if (b.isInfinity()) {
-            return this;
-        }
-        ECPointArithmetic R = new ECPointArithmetic(this.ec, zero, zero, null);
-        // u = Y2 * Z1 - Y1 * Z2
-        BigInteger u = b.y.multiply(this.z).subtract(this.y.multiply(b.z)).mod(this.ef.getP());
-        // v = X2 * Z1 - X1 * Z2
-        BigInteger v = b.x.multiply(this.z).subtract(this.x.multiply(b.z)).mod(this.ef.getP());
-
-        if (BigInteger.ZERO.equals(v)) {
-            if (BigInteger.ZERO.equals(u)) {
-                return this.twice(); // this == b, so double
-            }
-
-            infinity = true; // this = -b, so infinity
-            return R;
-        }
-
-        BigInteger THREE = new BigInteger("3");
-        BigInteger x1 = this.x;
-        BigInteger y1 = this.y;
-        BigInteger x2 = b.x;
-        BigInteger y2 = b.y;
-
-        BigInteger v2 = v.pow(2);
-        BigInteger v3 = v2.multiply(v);
-        BigInteger x1v2 = x1.multiply(v2);
-        BigInteger zu2 = u.pow(2).multiply(this.z);
-
-        // x3 = v * (z2 * (z1 * u^2 - 2 * x1 * v^2) - v^3)
-        BigInteger x3 = zu2.subtract(x1v2.shiftLeft(1)).multiply(b.z).subtract(v3).multiply(v).mod(this.ef.getP());
-
-        // y3 = z2 * (3 * x1 * u * v^2 - y1 * v^3 - z1 * u^3) + u * v^3
-        BigInteger y3 = x1v2.multiply(THREE).multiply(u).subtract(y1.multiply(v3)).subtract(zu2.multiply(u)).multiply(b.z).add(u.multiply(v3)).mod(this.ef.getP());
-
-        // z3 = v^3 * z1 * z2
-        BigInteger z3 = v3.multiply(this.z).multiply(b.z).mod(this.ef.getP());
-
-        return new ECPointArithmetic(this.ec, x3, y3, z3);
+        Workspace w = new Workspace();
+        ECPointArithmetic r = copyOf(this);
+        w.add(r.x, r.y, r.z, b.x, b.y, b.z);
+        return r;
     }
 
     public ECPointArithmetic twice() {
-        if (this.isInfinity()) {
-            return this;
-        }
-        ECPointArithmetic R = new ECPointArithmetic(this.ec, zero, zero, null);
-        if (this.y.signum() == 0) {
-            infinity = true;
-            return R;
-        }
-
-        BigInteger THREE = new BigInteger("3");
-        BigInteger x1 = this.x;
-        BigInteger y1 = this.y;
-
-        BigInteger y1z1 = y1.multiply(this.z);
-        BigInteger y1sqz1 = y1z1.multiply(y1).mod(this.ef.getP());
-        BigInteger a = this.ec.getA();
-
-        // w = 3 * x1^2 + a * z1^2
-        BigInteger w = x1.pow(2).multiply(THREE);
-
-        if (!BigInteger.ZERO.equals(a)) {
-            w = w.add(this.z.pow(2).multiply(a));
-        }
-
-        w = w.mod(this.ef.getP());
-
-        // x3 = 2 * y1 * z1 * (w^2 - 8 * x1 * y1^2 * z1)
-        BigInteger x3 = w.pow(2).subtract(x1.shiftLeft(3).multiply(y1sqz1)).shiftLeft(1).multiply(y1z1).mod(this.ef.getP());
-
-        // y3 = 4 * y1^2 * z1 * (3 * w * x1 - 2 * y1^2 * z1) - w^3
-        BigInteger y3 = (w.multiply(THREE).multiply(x1).subtract(y1sqz1.shiftLeft(1))).shiftLeft(2).multiply(y1sqz1).subtract(w.pow(2).multiply(w)).mod(this.ef.getP());
-
-        // z3 = 8 * (y1 * z1)^3
-        BigInteger z3 = y1z1.pow(2).multiply(y1z1).shiftLeft(3).mod(this.ef.getP());
-
-        return new ECPointArithmetic(this.ec, x3, y3, z3);
+        Workspace w = new Workspace();
+        ECPointArithmetic r = copyOf(this);
+        w.twice(r.x, r.y, r.z);
+        return r;
     }
 
     public ECPointArithmetic multiply(BigInteger k) {
         if (this.isInfinity()) {
             return this;
         }
+        // (X, Y, Z) projective is (X * Z, Y * Z^2, Z) Jacobian, and (X, Y, Z) Jacobian is (X * Z, Y, Z^3) projective
+        int[] tt = Secp256k1Field.createExt();
+        int[] jx = Secp256k1Field.create();
+        int[] jy = Secp256k1Field.create();
+        Secp256k1Field.mul(this.x, this.z, jx, tt);
+        Secp256k1Field.square(this.z, jy, tt);
+        Secp256k1Field.mul(this.y, jy, jy, tt);
+        Secp256k1Point r = new Secp256k1Point(jx, jy, this.z.clone()).multiply(k);
+
+        int[] rx = Secp256k1Field.create();
+        int[] rz = Secp256k1Field.create();
+        Secp256k1Field.mul(r.x, r.z, rx, tt);
+        Secp256k1Field.square(r.z, rz, tt);
+        Secp256k1Field.mul(rz, r.z, rz, tt);
+        return new ECPointArithmetic(this.ec, rx, r.y.clone(), rz);
+    }
 
-        ECPointArithmetic R = new ECPointArithmetic(this.ec, zero, zero, null);
-        if (k.signum() == 0) {
-            infinity = true;
-            return R;
-        }
-
-        BigInteger e = k;
-        BigInteger h = e.multiply(new BigInteger("3"));
-
-        ECPointArithmetic neg = this.negate();
-        R = this;
+    private static ECPointArithmetic copyOf(ECPointArithmetic p) {
+        return new ECPointArithmetic(p.ec, p.x.clone(), p.y.clone(), p.z.clone());
+    }
 
-        int i;
-        for (i = h.bitLength() - 2; i > 0; --i) {
-            R = R.twice();
-            boolean hBit = h.testBit(i);
-            boolean eBit = e.testBit(i);
+    /**
+     * Scratch registers for the in-place point formulas, so a whole scalar multiplication runs without allocating.
+     */
+    private static final class Workspace {
+        private final int[] tt = Secp256k1Field.createExt();
+        private final int[] u = Secp256k1Field.create();
+        private final int[] v = Secp256k1Field.create();
+        private final int[] v2 = Secp256k1Field.create();
+        private final int[] v3 = Secp256k1Field.create();
+        private final int[] t0 = Secp256k1Field.create();
+        private final int[] t1 = Secp256k1Field.create();
+        private final int[] t2 = Secp256k1Field.create();
+
+        // (x1, y1, z1) += (x2, y2, z2)
+        void add(int[] x1, int[] y1, int[] z1, int[] x2, int[] y2, int[] z2) {
+            if (Secp256k1Field.isZero(z2)) {
+                return;
+            }
+            if (Secp256k1Field.isZero(z1)) {
+                Secp256k1Field.copy(x2, x1);
+                Secp256k1Field.copy(y2, y1);
+                Secp256k1Field.copy(z2, z1);
+                return;
+            }
+            // u = Y2 * Z1 - Y1 * Z2
+            Secp256k1Field.mul(y2, z1, u, tt);
+            Secp256k1Field.mul(y1, z2, t0, tt);
+            Secp256k1Field.sub(u, t0, u);
+            // v = X2 * Z1 - X1 * Z2
+            Secp256k1Field.mul(x2, z1, v, tt);
+            Secp256k1Field.mul(x1, z2, t0, tt);
+            Secp256k1Field.sub(v, t0, v);
+
+            if (Secp256k1Field.isZero(v)) {
+                if (Secp256k1Field.isZero(u)) {
+                    twice(x1, y1, z1); // this == b, so double
+                } else {
+                    Secp256k1Field.setInt(0, z1); // this = -b, so infinity
+                }
+                return;
+            }
 
-            if (hBit != eBit) {
-                R = R.add(hBit ? this : neg);
+            Secp256k1Field.square(v, v2, tt);
+            Secp256k1Field.mul(v2, v, v3, tt);
+            // t1 = x1 * v^2, t2 = z1 * u^2
+            Secp256k1Field.mul(x1, v2, t1, tt);
+            Secp256k1Field.square(u, t2, tt);
+            Secp256k1Field.mul(t2, z1, t2, tt);
+
+            // y3 = z2 * (3 * x1 * u * v^2 - y1 * v^3 - z1 * u^3) + u * v^3
+            Secp256k1Field.mulSmall(t1, 3, t0);
+            Secp256k1Field.mul(t0, u, t0, tt);
+            Secp256k1Field.mul(y1, v3, y1, tt);
+            Secp256k1Field.sub(t0, y1, t0);
+            Secp256k1Field.mul(t2, u, y1, tt);
+            Secp256k1Field.sub(t0, y1, t0);
+            Secp256k1Field.mul(t0, z2, t0, tt);
+            Secp256k1Field.mul(u, v3, y1, tt);
+            Secp256k1Field.add(t0, y1, y1);
+
+            // x3 = v * (z2 * (z1 * u^2 - 2 * x1 * v^2) - v^3)
+            Secp256k1Field.twice(t1, t1);
+            Secp256k1Field.sub(t2, t1, t0);
+            Secp256k1Field.mul(t0, z2, t0, tt);
+            Secp256k1Field.sub(t0, v3, t0);
+            Secp256k1Field.mul(t0, v, x1, tt);
+
+            // z3 = v^3 * z1 * z2
+            Secp256k1Field.mul(z1, z2, t0, tt);
+            Secp256k1Field.mul(t0, v3, z1, tt);
+        }
+
+        // (x1, y1, z1) *= 2, on a curve with a == 0
+        void twice(int[] x1, int[] y1, int[] z1) {
+            if (Secp256k1Field.isZero(z1)) {
+                return;
+            }
+            if (Secp256k1Field.isZero(y1)) {
+                Secp256k1Field.setInt(0, z1);
+                return;
             }
+            // u = y1 * z1, v = y1^2 * z1, v2 = w = 3 * x1^2
+            Secp256k1Field.mul(y1, z1, u, tt);
+            Secp256k1Field.mul(u, y1, v, tt);
+            Secp256k1Field.square(x1, v2, tt);
+            Secp256k1Field.mulSmall(v2, 3, v2);
+
+            // y3 = 4 * y1^2 * z1 * (3 * w * x1 - 2 * y1^2 * z1) - w^3
+            Secp256k1Field.mul(v2, x1, t0, tt);
+            Secp256k1Field.mulSmall(t0, 3, t0);
+            Secp256k1Field.twice(v, t1);
+            Secp256k1Field.sub(t0, t1, t0);
+            Secp256k1Field.mulSmall(t0, 4, t0);
+            Secp256k1Field.mul(t0, v, t0, tt);
+            Secp256k1Field.square(v2, t1, tt);
+            Secp256k1Field.mul(t1, v2, t2, tt);
+            Secp256k1Field.sub(t0, t2, y1);
+
+            // x3 = 2 * y1 * z1 * (w^2 - 8 * x1 * y1^2 * z1)
+            Secp256k1Field.mulSmall(x1, 8, t0);
+            Secp256k1Field.mul(t0, v, t0, tt);
+            Secp256k1Field.sub(t1, t0, t0);
+            Secp256k1Field.twice(t0, t0);
+            Secp256k1Field.mul(t0, u, x1, tt);
+
+            // z3 = 8 * (y1 * z1)^3
+            Secp256k1Field.square(u, t0, tt);
+            Secp256k1Field.mul(t0, u, t0, tt);
+            Secp256k1Field.mulSmall(t0, 8, z1);
         }
-
-        return R;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,193 @@
+package org.torusresearch.torusutils.helpers;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Decrypts the ECIES messages sent to one private key, as the nodes encrypt shares: ECDH with the sender's ephemeral
+ * public key, SHA-512 of the shared x coordinate, then AES-256-CBC keyed with the first half of the hash. The second
+ * half keys an HMAC-SHA256 over iv, ephemeral public key and ciphertext, which is checked before decrypting, so a
+ * corrupted or forged share is rejected here rather than passed on to key reconstruction.
+ * <p>
+ * Keys, IVs and ciphertexts are raw bytes, so values with leading zero bytes keep their length. The Cipher,
+ * MessageDigest and Mac are created on first use and reused for every message, so an instance must not be used by
+ * two threads at once. Handing it from one thread to the next, as {@link Some} does with its predicate, is fine.
+ */
+public class EciesDecryptor {
+    private static final int[] B = {7, 0, 0, 0, 0, 0, 0, 0};
+
+    private final BigInteger privateKey;
+    private Cipher cipher;
+    private MessageDigest sha512;
+    private Mac hmac;
+
+    public EciesDecryptor(BigInteger _privateKey) {
+        privateKey = _privateKey;
+    }
+
+    /**
+     * Decrypts a share as the nodes send it: {@code share} is the base64 encoding of the ciphertext's hex string,
+     * and the ephemeral public key, IV and MAC are hex strings.
+     */
+    public byte[] decryptShare(String ephemPublicKeyHex, String ivHex, String macHex, String share) throws GeneralSecurityException, IOException {
+        if (macHex == null) {
+            throw new GeneralSecurityException("share has no MAC");
+        }
+        byte[] ciphertext = HexCodec.decode(Base64.decode(share));
+        return decrypt(HexCodec.decode(ephemPublicKeyHex), HexCodec.decode(ivHex), ciphertext, HexCodec.decode(macHex));
+    }
+
+    /**
+     * Decrypts several shares as {@link #decryptShare} does, with one field inversion for all of their ECDH secrets.
+     * A share that cannot be decrypted, or whose MAC does not match, comes back as null.
+     */
+    public byte[][] decryptShares(String[] ephemPublicKeysHex, String[] ivsHex, String[] macsHex, String[] shares) {
+        int size = shares.length;
+        byte[][] ephemPublicKeys = new byte[size][];
+        byte[][] ciphertexts = new byte[size][];
+        int valid = 0;
+        for (int i = 0; i < size; i++) {
+            try {
+                if (macsHex[i] != null) {
+                    ciphertexts[i] = HexCodec.decode(Base64.decode(shares[i]));
+                    ephemPublicKeys[i] = HexCodec.decode(ephemPublicKeysHex[i]);
+                    toPoint(ephemPublicKeys[i]);
+                    valid++;
+                }
+            } catch (Exception e) {
+                ephemPublicKeys[i] = null;
+            }
+        }
+        byte[][] validKeys = new byte[valid][];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (ephemPublicKeys[i] != null) {
+                validKeys[j++] = ephemPublicKeys[i];
+            }
+        }
+        byte[][] secrets;
+        try {
+            secrets = sharedSecrets(validKeys);
+        } catch (InvalidKeyException e) {
+            // cannot happen, every key was checked above
+            throw new IllegalStateException(e);
+        }
+        byte[][] plaintexts = new byte[size][];
+        for (int i = 0, j = 0; i < size; i++) {
+            if (ephemPublicKeys[i] != null) {
+                try {
+                    plaintexts[i] = decrypt(secrets[j], ephemPublicKeys[i], HexCodec.decode(ivsHex[i]), ciphertexts[i], HexCodec.decode(macsHex[i]));
+                } catch (Exception e) {
+                    plaintexts[i] = null;
+                }
+                j++;
+            }
+        }
+        return plaintexts;
+    }
+
+    /**
+     * Checks the MAC and decrypts {@code ciphertext}, given the sender's uncompressed 65 byte ephemeral public key and
+     * the 16 byte IV.
+     */
+    public byte[] decrypt(byte[] ephemPublicKey, byte[] iv, byte[] ciphertext, byte[] mac) throws GeneralSecurityException {
+        return decrypt(sharedSecrets(new byte[][]{ephemPublicKey})[0], ephemPublicKey, iv, ciphertext, mac);
+    }
+
+    /**
+     * The ECDH secrets with several uncompressed public keys: the x coordinate of privateKey * publicKey, as 32
+     * big-endian bytes each. The products are converted to affine coordinates together with Montgomery's trick, so
+     * the whole batch costs a single field inversion.
+     */
+    public byte[][] sharedSecrets(byte[][] publicKeys) throws InvalidKeyException {
+        byte[][] secrets = new byte[publicKeys.length][];
+        if (publicKeys.length == 0) {
+            return secrets;
+        }
+        Secp256k1Point[] products = new Secp256k1Point[publicKeys.length];
+        for (int i = 0; i < publicKeys.length; i++) {
+            products[i] = toPoint(publicKeys[i]).multiply(privateKey);
+            if (products[i].isInfinity()) {
+                throw new InvalidKeyException("shared secret is the point at infinity");
+            }
+        }
+        int[][] affineX = new int[publicKeys.length][];
+        int[][] affineY = new int[publicKeys.length][];
+        new Secp256k1Point.Workspace().toAffine(products, affineX, affineY);
+        for (int i = 0; i < publicKeys.length; i++) {
+            secrets[i] = new byte[32];
+            Secp256k1Field.toBytes(affineX[i], secrets[i], 0);
+        }
+        return secrets;
+    }
+
+    private byte[] decrypt(byte[] sharedSecret, byte[] ephemPublicKey, byte[] iv, byte[] ciphertext, byte[] mac) throws GeneralSecurityException {
+        if (sha512 == null) {
+            sha512 = MessageDigest.getInstance("SHA-512");
+        }
+        int start = kdfOffset(sharedSecret);
+        sha512.update(sharedSecret, start, sharedSecret.length - start);
+        byte[] hash = sha512.digest();
+        if (hmac == null) {
+            hmac = Mac.getInstance("HmacSHA256");
+        }
+        hmac.init(new SecretKeySpec(hash, 32, 32, "HmacSHA256"));
+        hmac.update(iv);
+        hmac.update(ephemPublicKey);
+        hmac.update(ciphertext);
+        if (!MessageDigest.isEqual(hmac.doFinal(), mac)) {
+            throw new GeneralSecurityException("share MAC does not match");
+        }
+        if (cipher == null) {
+            cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        }
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(hash, 0, 32, "AES"), new IvParameterSpec(iv));
+        return cipher.doFinal(ciphertext);
+    }
+
+    /**
+     * Where the KDF input starts in a shared secret: the x coordinate goes into the hash without leading zero bytes,
+     * as the nodes do.
+     */
+    static int kdfOffset(byte[] sharedSecret) {
+        int start = 0;
+        while (start < sharedSecret.length - 1 && sharedSecret[start] == 0) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Reads an uncompressed public key, 0x04 followed by x and y, and checks that it is on the curve.
+     */
+    static Secp256k1Point toPoint(byte[] publicKey) throws InvalidKeyException {
+        if (publicKey.length != 65 || publicKey[0] != 4) {
+            throw new InvalidKeyException("ephemeral public key is not an uncompressed point");
+        }
+        BigInteger x = new BigInteger(1, Arrays.copyOfRange(publicKey, 1, 33));
+        BigInteger y = new BigInteger(1, Arrays.copyOfRange(publicKey, 33, 65));
+        if (x.compareTo(Secp256k1Field.P) >= 0 || y.compareTo(Secp256k1Field.P) >= 0) {
+            throw new InvalidKeyException("ephemeral public key is out of range");
+        }
+        Secp256k1Point point = Secp256k1Point.fromAffine(x, y);
+        // y^2 == x^3 + 7
+        int[] tt = Secp256k1Field.createExt();
+        int[] lhs = Secp256k1Field.create();
+        int[] rhs = Secp256k1Field.create();
+        Secp256k1Field.square(point.y, lhs, tt);
+        Secp256k1Field.square(point.x, rhs, tt);
+        Secp256k1Field.mul(rhs, point.x, rhs, tt);
+        Secp256k1Field.add(rhs, B, rhs);
+        if (!Secp256k1Field.equals(lhs, rhs)) {
+            throw new InvalidKeyException("ephemeral public key is not on the curve");
+        }
+        return point;
+    }
+}
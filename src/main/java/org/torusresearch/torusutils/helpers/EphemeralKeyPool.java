@@ -0,0 +1,132 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.web3j.crypto.ECKeyPair;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of single-use key pairs for the temporary key of a login, so that drawing the key is off the
+ * critical path. A low priority daemon thread keeps the pool full, computing public keys with the fixed-base
+ * generator table, whose multiplication runs in constant time (see {@link Secp256k1Generator}), and waits while it is
+ * full. {@link #take()} hands every key pair out exactly once and never
+ * blocks: when the pool is empty it generates a key pair on the calling thread.
+ * <p>
+ * Pooled private keys are held as byte arrays and wiped as they are handed out or when the pool is closed. The
+ * returned {@link ECKeyPair} holds its key as an immutable BigInteger, which cannot be wiped, so callers should drop
+ * it as soon as the login is done.
+ */
+public class EphemeralKeyPool implements AutoCloseable {
+    private static final byte[] N_BYTES = toBytes(Secp256k1Scalar.N);
+
+    private final SecureRandom random = new SecureRandom();
+    private final BlockingQueue<Entry> entries;
+    private final Thread refill;
+
+    public EphemeralKeyPool(int capacity) {
+        entries = new ArrayBlockingQueue<>(capacity);
+        refill = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry = generate();
+                try {
+                    entries.put(entry);
+                } catch (InterruptedException e) {
+                    // closed
+                    Arrays.fill(entry.privateKey, (byte) 0);
+                    return;
+                }
+            }
+        }, "torus-ephemeral-key-pool");
+        refill.setDaemon(true);
+        refill.setPriority(Thread.MIN_PRIORITY);
+        refill.start();
+    }
+
+    /**
+     * Removes a key pair from the pool, or generates one if the pool is empty.
+     */
+    public ECKeyPair take() {
+        Entry entry = entries.poll();
+        if (entry == null) {
+            entry = generate();
+        }
+        ECKeyPair keyPair = new ECKeyPair(new BigInteger(1, entry.privateKey), entry.publicKey);
+        Arrays.fill(entry.privateKey, (byte) 0);
+        return keyPair;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Stops refilling and wipes the key pairs left in the pool. Later calls to {@link #take()} generate a key pair
+     * each time.
+     */
+    @Override
+    public void close() {
+        refill.interrupt();
+        try {
+            refill.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Entry entry;
+        while ((entry = entries.poll()) != null) {
+            Arrays.fill(entry.privateKey, (byte) 0);
+        }
+    }
+
+    private Entry generate() {
+        byte[] privateKey = new byte[32];
+        do {
+            random.nextBytes(privateKey);
+        } while (!isValidPrivateKey(privateKey));
+        // the scalar is below n, hence below p, so it reads the same as a field element
+        int[] scalar = Secp256k1Field.create();
+        Secp256k1Field.fromBytes(privateKey, 0, scalar);
+        Secp256k1Point publicKey = Secp256k1Generator.multiply(scalar);
+        Arrays.fill(scalar, 0);
+        return new Entry(privateKey, publicKey.getAffineX().shiftLeft(256).or(publicKey.getAffineY()));
+    }
+
+    // 0 < k < n, comparing big-endian bytes
+    private static boolean isValidPrivateKey(byte[] privateKey) {
+        boolean zero = true;
+        for (byte b : privateKey) {
+            zero &= b == 0;
+        }
+        if (zero) {
+            return false;
+        }
+        for (int i = 0; i < 32; i++) {
+            int a = privateKey[i] & 0xFF;
+            int n = N_BYTES[i] & 0xFF;
+            if (a != n) {
+                return a < n;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] toBytes(BigInteger value) {
+        byte[] bytes = new byte[32];
+        byte[] raw = value.toByteArray();
+        int length = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - length, bytes, 32 - length, length);
+        return bytes;
+    }
+
+    private static final class Entry {
+        private final byte[] privateKey;
+        private final BigInteger publicKey;
+
+        Entry(byte[] _privateKey, BigInteger _publicKey) {
+            privateKey = _privateKey;
+            publicKey = _publicKey;
+        }
+    }
+}
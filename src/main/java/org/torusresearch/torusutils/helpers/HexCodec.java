@@ -0,0 +1,146 @@
+package org.torusresearch.torusutils.helpers;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed-width hex for the values exchanged with the nodes: 32 byte scalars, 64 byte points (x then y) and 20 byte
+ * addresses. Values are written into and read from caller supplied arrays, always at full width, so a coordinate
+ * whose first digits are zero keeps them, as {@code BigInteger.toString(16)} does not.
+ * <p>
+ * Decoding reads the digits right-aligned into the given width and accepts fewer digits than the width, as nodes
+ * may send numbers without their leading zeros, but never more. An optional 0x prefix is skipped.
+ */
+public class HexCodec {
+    public static final int SCALAR_BYTES = 32;
+    public static final int POINT_BYTES = 64;
+    public static final int ADDRESS_BYTES = 20;
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private HexCodec() {
+    }
+
+    /**
+     * Writes {@code length} bytes as {@code 2 * length} lowercase hex digits.
+     */
+    public static void encode(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+        for (int i = 0; i < length; i++) {
+            int b = bytes[offset + i] & 0xFF;
+            out[outOffset + 2 * i] = DIGITS[b >>> 4];
+            out[outOffset + 2 * i + 1] = DIGITS[b & 0xF];
+        }
+    }
+
+    public static String encode(byte[] bytes, int offset, int length) {
+        char[] out = new char[2 * length];
+        encode(bytes, offset, length, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * Decodes hex digits into exactly {@code length} bytes at {@code offset}, padding with leading zeros.
+     *
+     * @throws IllegalArgumentException if the input has a non-hex character or more than {@code 2 * length} digits
+     */
+    public static void decode(CharSequence hex, byte[] out, int offset, int length) {
+        int start = hasPrefix(hex) ? 2 : 0;
+        int digits = hex.length() - start;
+        checkLength(digits, length);
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = 0;
+        }
+        for (int i = 0; i < digits; i++) {
+            int position = 2 * length - digits + i;
+            out[offset + (position >> 1)] |= digit(hex.charAt(start + i)) << ((position & 1) == 0 ? 4 : 0);
+        }
+    }
+
+    /**
+     * Decodes ASCII hex digits, such as a hex string sent as bytes, into exactly {@code length} bytes at
+     * {@code offset}, padding with leading zeros.
+     */
+    public static void decode(byte[] ascii, int asciiOffset, int digits, byte[] out, int offset, int length) {
+        checkLength(digits, length);
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = 0;
+        }
+        for (int i = 0; i < digits; i++) {
+            int position = 2 * length - digits + i;
+            out[offset + (position >> 1)] |= digit((char) (ascii[asciiOffset + i] & 0xFF)) << ((position & 1) == 0 ? 4 : 0);
+        }
+    }
+
+    /**
+     * Decodes ASCII hex digits of any length, reading an odd count as if it had a leading zero.
+     */
+    public static byte[] decode(byte[] ascii) {
+        byte[] bytes = new byte[(ascii.length + 1) / 2];
+        decode(ascii, 0, ascii.length, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes hex of any length, reading an odd count as if it had a leading zero.
+     */
+    public static byte[] decode(CharSequence hex) {
+        int digits = hex.length() - (hasPrefix(hex) ? 2 : 0);
+        byte[] bytes = new byte[(digits + 1) / 2];
+        decode(hex, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Decodes a point given as two hex coordinates into 64 bytes, x then y.
+     */
+    public static void decodePoint(CharSequence x, CharSequence y, byte[] out, int offset) {
+        decode(x, out, offset, SCALAR_BYTES);
+        decode(y, out, offset + SCALAR_BYTES, SCALAR_BYTES);
+    }
+
+    /**
+     * Writes a non-negative integer below 2^(8 * length) as exactly {@code length} big-endian bytes.
+     */
+    public static void toBytes(BigInteger value, byte[] out, int offset, int length) {
+        if (value.signum() < 0 || value.bitLength() > 8 * length) {
+            throw new IllegalArgumentException("value does not fit in " + length + " bytes");
+        }
+        byte[] raw = value.toByteArray();
+        // raw may carry a leading sign byte, which is zero here
+        int copied = Math.min(raw.length, length);
+        for (int i = 0; i < length - copied; i++) {
+            out[offset + i] = 0;
+        }
+        System.arraycopy(raw, raw.length - copied, out, offset + length - copied, copied);
+    }
+
+    /**
+     * The hex of a scalar, at full 64 digit width.
+     */
+    public static String encodeScalar(BigInteger scalar) {
+        byte[] bytes = new byte[SCALAR_BYTES];
+        toBytes(scalar, bytes, 0, SCALAR_BYTES);
+        return encode(bytes, 0, SCALAR_BYTES);
+    }
+
+    private static boolean hasPrefix(CharSequence hex) {
+        return hex.length() >= 2 && hex.charAt(0) == '0' && (hex.charAt(1) == 'x' || hex.charAt(1) == 'X');
+    }
+
+    private static void checkLength(int digits, int length) {
+        if (digits > 2 * length) {
+            throw new IllegalArgumentException("more than " + length + " bytes of hex");
+        }
+    }
+
+    // ASCII digits only, unlike Character.digit
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        char lower = (char) (c | 0x20);
+        if (lower >= 'a' && lower <= 'f') {
+            return lower - 'a' + 10;
+        }
+        throw new IllegalArgumentException("invalid hex digit");
+    }
+}
@@ -0,0 +1,298 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.torusresearch.torusutils.types.DecryptedShare;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds the private key behind a public key from decrypted shares, some of which may be wrong, by interpolating
+ * threshold-sized subsets of the shares until one of them yields a secret whose public key matches.
+ * <p>
+ * Shares and indexes are converted to scalar limbs once, and the public key once to a point, so a subset costs one
+ * interpolation in limbs and one fixed-base multiplication compared in Jacobian coordinates, with no inversion or
+ * BigInteger conversion until the matching subset is found.
+ * <p>
+ * Given an executor, the subsets are cut into chunks that fix their largest elements, and up to {@code parallelism}
+ * workers plus the calling thread claim chunks in order until one finds the key. The others stop at their next subset.
+ * The calling thread works too, so the search completes even if the executor never runs a worker.
+ * <p>
+ * Shares can also be fed one at a time with {@link #add(DecryptedShare)} as they arrive. Each call only tries the
+ * subsets that contain the new share, so every subset is tried once over all calls and the key is found as soon as
+ * the share completing a good subset comes in. {@code add} keeps the shares seen so far and is not thread safe.
+ */
+public class KeyReconstructor {
+    // chunks per worker, so uneven chunks still balance
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    private final int threshold;
+    private final Secp256k1Point publicKey;
+    private final Executor executor;
+    private final int parallelism;
+    private final List<int[]> addedValues = new ArrayList<>();
+    private final List<int[]> addedIndexes = new ArrayList<>();
+
+    public KeyReconstructor(int _threshold, BigInteger publicKeyX, BigInteger publicKeyY) {
+        this(_threshold, publicKeyX, publicKeyY, null, 0);
+    }
+
+    public KeyReconstructor(int _threshold, BigInteger publicKeyX, BigInteger publicKeyY, Executor _executor, int _parallelism) {
+        this(_threshold, Secp256k1Point.fromAffine(publicKeyX, publicKeyY), _executor, _parallelism);
+    }
+
+    /**
+     * Takes the public key as 64 bytes, x then y (see {@link HexCodec}).
+     */
+    public KeyReconstructor(int _threshold, byte[] publicKeyBytes, Executor _executor, int _parallelism) {
+        this(_threshold, Secp256k1Point.fromBytes(publicKeyBytes, 0), _executor, _parallelism);
+    }
+
+    private KeyReconstructor(int _threshold, Secp256k1Point _publicKey, Executor _executor, int _parallelism) {
+        threshold = _threshold;
+        publicKey = _publicKey;
+        executor = _executor;
+        parallelism = _parallelism;
+    }
+
+    /**
+     * Returns the private key, or null if no subset of the shares interpolates to it.
+     */
+    public BigInteger reconstruct(List<DecryptedShare> shares) {
+        int[][] values = new int[shares.size()][];
+        int[][] indexes = new int[shares.size()][];
+        for (int i = 0; i < shares.size(); i++) {
+            values[i] = Secp256k1Scalar.fromBigInteger(shares.get(i).getValue());
+            indexes[i] = Secp256k1Scalar.fromBigInteger(shares.get(i).getIndex());
+        }
+        return search(values, indexes, new Chunk(values.length, new int[0]));
+    }
+
+    /**
+     * Adds a share to those added before and returns the private key if a subset containing the new share
+     * interpolates to it, or null otherwise.
+     */
+    public BigInteger add(DecryptedShare share) {
+        addedValues.add(Secp256k1Scalar.fromBigInteger(share.getValue()));
+        addedIndexes.add(Secp256k1Scalar.fromBigInteger(share.getIndex()));
+        int last = addedValues.size() - 1;
+        int[][] values = addedValues.toArray(new int[0][]);
+        int[][] indexes = addedIndexes.toArray(new int[0][]);
+        // the new share is the largest element, with any threshold - 1 of the earlier ones below it
+        return search(values, indexes, new Chunk(last, new int[]{last}));
+    }
+
+    private BigInteger search(int[][] values, int[][] indexes, Chunk all) {
+        if (all.suffix.length > threshold) {
+            return null;
+        }
+        if (executor == null || parallelism < 1) {
+            return search(values, indexes, all, null);
+        }
+        return searchInParallel(values, indexes, all);
+    }
+
+    private BigInteger searchInParallel(int[][] values, int[][] indexes, Chunk all) {
+        List<Chunk> chunks = new ArrayList<>();
+        split(all, binomial(all.limit, threshold - all.suffix.length) / ((parallelism + 1) * CHUNKS_PER_WORKER), chunks);
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<BigInteger> result = new AtomicReference<>();
+        Runnable worker = () -> {
+            while (!stop.get()) {
+                running.incrementAndGet();
+                try {
+                    int chunk = nextChunk.getAndIncrement();
+                    if (chunk >= chunks.size()) {
+                        return;
+                    }
+                    BigInteger privateKey = search(values, indexes, chunks.get(chunk), stop);
+                    if (privateKey != null && result.compareAndSet(null, privateKey)) {
+                        stop.set(true);
+                    }
+                } finally {
+                    if (running.decrementAndGet() == 0 || stop.get()) {
+                        synchronized (running) {
+                            running.notifyAll();
+                        }
+                    }
+                }
+            }
+        };
+        for (int i = 0; i < Math.min(parallelism, chunks.size() - 1); i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        synchronized (running) {
+            while (!stop.get() && running.get() > 0) {
+                try {
+                    running.wait();
+                } catch (InterruptedException e) {
+                    stop.set(true);
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return result.get();
+    }
+
+    /**
+     * Tries every subset of a chunk, giving up early once {@code stop} is set by another worker.
+     */
+    private BigInteger search(int[][] values, int[][] indexes, Chunk chunk, AtomicBoolean stop) {
+        Interpolation interpolation = new Interpolation(indexes);
+        int[] secret = new int[8];
+        int[] members = new int[threshold];
+        int free = threshold - chunk.suffix.length;
+        System.arraycopy(chunk.suffix, 0, members, free, chunk.suffix.length);
+        Combinations combinations = new Combinations(chunk.limit, free);
+        while (combinations.next()) {
+            if (stop != null && stop.get()) {
+                return null;
+            }
+            System.arraycopy(combinations.current(), 0, members, 0, free);
+            if (interpolation.interpolate(values, members, secret) && Secp256k1Generator.multiply(secret).pointEquals(publicKey)) {
+                return Secp256k1Scalar.toBigInteger(secret);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits a chunk by its next largest element until each piece holds at most {@code target} subsets, keeping the
+     * pieces in ascending order so the subset of the lowest shares is still tried first.
+     */
+    private void split(Chunk chunk, long target, List<Chunk> chunks) {
+        int free = threshold - chunk.suffix.length;
+        if (free == 0 || binomial(chunk.limit, free) <= Math.max(target, 1)) {
+            chunks.add(chunk);
+            return;
+        }
+        for (int top = free - 1; top < chunk.limit; top++) {
+            int[] suffix = new int[chunk.suffix.length + 1];
+            suffix[0] = top;
+            System.arraycopy(chunk.suffix, 0, suffix, 1, chunk.suffix.length);
+            split(new Chunk(top, suffix), target, chunks);
+        }
+    }
+
+    private static long binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    /**
+     * Interpolates the secret at zero from shares and their node indexes.
+     */
+    public static BigInteger lagrangeInterpolation(BigInteger[] shares, BigInteger[] nodeIndex) {
+        int[][] values = new int[shares.length][];
+        int[][] indexes = new int[shares.length][];
+        int[] members = new int[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            values[i] = Secp256k1Scalar.fromBigInteger(shares[i]);
+            indexes[i] = Secp256k1Scalar.fromBigInteger(nodeIndex[i]);
+            members[i] = i;
+        }
+        int[] secret = new int[8];
+        if (!new Interpolation(indexes).interpolate(values, members, secret)) {
+            return null;
+        }
+        return Secp256k1Scalar.toBigInteger(secret);
+    }
+
+    /**
+     * The subsets made of {@code suffix}, a fixed set of largest elements, and any subset of {0, ..., limit - 1}.
+     */
+    private static final class Chunk {
+        private final int limit;
+        private final int[] suffix;
+
+        Chunk(int _limit, int[] _suffix) {
+            limit = _limit;
+            suffix = _suffix;
+        }
+    }
+
+    /**
+     * Lagrange interpolation at zero over the shares selected by {@code members}. When every node index is below 64
+     * the coefficients come from the shared {@link LagrangeCoefficientCache}, unless it is disabled, otherwise they are
+     * computed per subset.
+     */
+    static final class Interpolation {
+        private final int[][] indexes;
+        private final LagrangeCoefficientCache cache;
+        // bit of each share's node index, or null when the cache is disabled or some index does not fit a bitmask
+        private final long[] bits;
+        private final int[] tt = new int[16];
+        private final int[] temp = new int[8];
+
+        Interpolation(int[][] _indexes) {
+            indexes = _indexes;
+            cache = LagrangeCoefficientCache.getInstance();
+            long[] indexBits = cache != null ? new long[indexes.length] : null;
+            for (int i = 0; i < indexes.length && indexBits != null; i++) {
+                if (LagrangeCoefficientCache.isCacheable(indexes[i])) {
+                    indexBits[i] = 1L << indexes[i][0];
+                } else {
+                    indexBits = null;
+                }
+            }
+            bits = indexBits;
+        }
+
+        /**
+         * Writes the interpolated secret, or returns false if two members share a node index.
+         */
+        boolean interpolate(int[][] values, int[] members, int[] secret) {
+            Secp256k1Field.setInt(0, secret);
+            if (bits != null) {
+                long mask = 0;
+                for (int member : members) {
+                    mask |= bits[member];
+                }
+                if (Long.bitCount(mask) != members.length) {
+                    return false;
+                }
+                int[][] coefficients = cache.coefficients(mask);
+                for (int member : members) {
+                    // coefficients are in ascending index order, so a member's is at the rank of its bit in the mask
+                    int[] coefficient = coefficients[Long.bitCount(mask & (bits[member] - 1))];
+                    Secp256k1Scalar.mul(coefficient, values[member], temp, tt);
+                    Secp256k1Scalar.add(secret, temp, secret);
+                }
+                return true;
+            }
+            int[][] memberIndexes = new int[members.length][];
+            for (int i = 0; i < members.length; i++) {
+                memberIndexes[i] = indexes[members[i]];
+                for (int j = 0; j < i; j++) {
+                    if (Secp256k1Field.equals(memberIndexes[i], memberIndexes[j])) {
+                        return false;
+                    }
+                }
+            }
+            int[][] coefficients = LagrangeCoefficientCache.compute(memberIndexes);
+            for (int i = 0; i < members.length; i++) {
+                Secp256k1Scalar.mul(coefficients[i], values[members[i]], temp, tt);
+                Secp256k1Scalar.add(secret, temp, secret);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.torusresearch.torusutils.helpers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lagrange basis coefficients at zero, lambda_i = prod_(j != i) x_j / (x_j - x_i) mod n, for subsets of node indexes.
+ * <p>
+ * Node indexes are small and fixed per network, so subsets of indexes below 64 are keyed by their bitmask and their
+ * coefficients kept in a bounded least recently used cache shared by all logins. Interpolating a subset is then a
+ * dot product of its shares with the cached coefficients. The denominators of a subset are inverted together with
+ * Montgomery's trick, one inversion per subset.
+ * <p>
+ * Coefficients are computed outside the lock, so two threads missing the same subset at once both compute it and
+ * the first to finish is kept. This is intended: a computation costs one inversion, and holding the lock through it
+ * would stall the parallel search's lookups of every other subset.
+ */
+public class LagrangeCoefficientCache {
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private static volatile LagrangeCoefficientCache instance = new LagrangeCoefficientCache(DEFAULT_MAX_ENTRIES);
+
+    private final Map<Long, int[][]> cache;
+
+    public LagrangeCoefficientCache(int maxEntries) {
+        cache = new LinkedHashMap<Long, int[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[][]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cache shared by all key reconstructions, or null if coefficients are computed per subset.
+     */
+    public static LagrangeCoefficientCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replaces the shared cache, for instance with one of a different size. With a null cache the coefficients of
+     * every subset are computed as it is interpolated. Reconstructions already running keep the cache they started
+     * with.
+     */
+    public static void setInstance(LagrangeCoefficientCache cache) {
+        instance = cache;
+    }
+
+    /**
+     * True if a node index, given as scalar limbs, can be a bit of a mask, that is it is in [1, 63].
+     */
+    public static boolean isCacheable(int[] index) {
+        for (int l = 1; l < 8; l++) {
+            if (index[l] != 0) {
+                return false;
+            }
+        }
+        return index[0] >= 1 && index[0] <= 63;
+    }
+
+    /**
+     * Coefficients for the subset of indexes set in {@code mask}, in ascending order of index. The returned arrays
+     * are shared and must not be modified.
+     */
+    public int[][] coefficients(long mask) {
+        int[][] coefficients;
+        synchronized (cache) {
+            coefficients = cache.get(mask);
+        }
+        if (coefficients == null) {
+            int[][] indexes = new int[Long.bitCount(mask)][];
+            int i = 0;
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                indexes[i] = new int[8];
+                indexes[i++][0] = Long.numberOfTrailingZeros(rest);
+            }
+            int[][] computed = compute(indexes);
+            synchronized (cache) {
+                coefficients = cache.putIfAbsent(mask, computed);
+            }
+            if (coefficients == null) {
+                coefficients = computed;
+            }
+        }
+        return coefficients;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Coefficients for arbitrary scalar indexes, which must be distinct, in the order given.
+     */
+    public static int[][] compute(int[][] indexes) {
+        int size = indexes.length;
+        int[] tt = new int[16];
+        int[] temp = new int[8];
+        int[][] numerators = new int[size][];
+        int[][] denominators = new int[size][];
+        for (int i = 0; i < size; i++) {
+            numerators[i] = new int[8];
+            denominators[i] = new int[8];
+            numerators[i][0] = 1;
+            denominators[i][0] = 1;
+            for (int j = 0; j < size; j++) {
+                if (i != j) {
+                    Secp256k1Scalar.mul(numerators[i], indexes[j], numerators[i], tt);
+                    Secp256k1Scalar.sub(indexes[j], indexes[i], temp);
+                    Secp256k1Scalar.mul(denominators[i], temp, denominators[i], tt);
+                }
+            }
+        }
+        // prefix[i] = d_0 * ... * d_i, then peel the inverses off the inverted total from the back
+        int[][] prefix = new int[size][];
+        for (int i = 0; i < size; i++) {
+            prefix[i] = new int[8];
+            if (i == 0) {
+                System.arraycopy(denominators[0], 0, prefix[0], 0, 8);
+            } else {
+                Secp256k1Scalar.mul(prefix[i - 1], denominators[i], prefix[i], tt);
+            }
+        }
+        int[][] coefficients = new int[size][];
+        if (size == 0) {
+            return coefficients;
+        }
+        int[] inverse = new int[8];
+        Secp256k1Scalar.invert(prefix[size - 1], inverse);
+        for (int i = size - 1; i >= 0; i--) {
+            coefficients[i] = new int[8];
+            if (i > 0) {
+                Secp256k1Scalar.mul(inverse, prefix[i - 1], temp, tt);
+                Secp256k1Scalar.mul(inverse, denominators[i], inverse, tt);
+            } else {
+                System.arraycopy(inverse, 0, temp, 0, 8);
+            }
+            Secp256k1Scalar.mul(numerators[i], temp, coefficients[i], tt);
+        }
+        return coefficients;
+    }
+}
@@ -2,6 +2,10 @@ package org.torusresearch.torusutils.helpers;
 
 import java.util.concurrent.CompletableFuture;
 
-public interface Predicate<T> {
-    CompletableFuture<T> call(String[] resultArr) throws PredicateFailedException;
-}
\ No newline at end of file
+public interface Predicate<R, T> {
+    /**
+     * Called by {@link Some} with each result as it arrives, along with the index of the promise that produced it.
+     * Throw {@link PredicateFailedException} while the results seen so far are not sufficient.
+     */
+    CompletableFuture<T> call(int index, R result) throws PredicateFailedException;
+}
@@ -0,0 +1,131 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.torusresearch.torusutils.types.TorusPublicKey;
+import org.torusresearch.torusutils.types.VerifierArgs;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Public keys of (verifier, verifier id) pairs on a set of endpoints, which do not change once the nodes have
+ * assigned them. Entries live for a fixed time after their lookup completes, and the least recently used entry is
+ * evicted once the cache is full.
+ * <p>
+ * Concurrent lookups of the same key share one request: the first caller runs the lookup, and everyone asking before
+ * it completes gets the same result. A failed lookup is not cached, so the next caller tries again.
+ */
+public class PublicAddressCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final long ttlNanos;
+    private final Map<Key, Entry> cache;
+
+    public PublicAddressCache(int maxEntries, long ttl, TimeUnit unit) {
+        ttlNanos = unit.toNanos(ttl);
+        cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached public key, or the result of a lookup already running for it, or else runs
+     * {@code lookup} and caches what it returns.
+     */
+    public CompletableFuture<TorusPublicKey> get(String[] endpoints, VerifierArgs verifierArgs, Supplier<CompletableFuture<TorusPublicKey>> lookup) {
+        Key key = new Key(endpoints, verifierArgs);
+        Entry entry;
+        boolean owner = false;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry == null || entry.isExpired(System.nanoTime())) {
+                entry = new Entry();
+                cache.put(key, entry);
+                owner = true;
+            }
+        }
+        if (owner) {
+            Entry pending = entry;
+            CompletableFuture<TorusPublicKey> result;
+            try {
+                result = lookup.get();
+            } catch (RuntimeException e) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(e);
+            }
+            result.whenComplete((publicKey, error) -> {
+                if (error != null || publicKey == null) {
+                    synchronized (cache) {
+                        cache.remove(key, pending);
+                    }
+                    pending.future.completeExceptionally(error != null ? error : new Exception("public address lookup returned nothing"));
+                } else {
+                    pending.expiresAt = System.nanoTime() + ttlNanos;
+                    pending.completed = true;
+                    pending.future.complete(publicKey);
+                }
+            });
+        }
+        // a copy, so that a caller cancelling or completing its future cannot affect the others
+        return entry.future.thenApply(publicKey -> publicKey);
+    }
+
+    public void invalidate(String[] endpoints, VerifierArgs verifierArgs) {
+        synchronized (cache) {
+            cache.remove(new Key(endpoints, verifierArgs));
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<TorusPublicKey> future = new CompletableFuture<>();
+        private volatile long expiresAt;
+        // set after expiresAt, so a reader that sees it also sees the expiry
+        private volatile boolean completed = false;
+
+        boolean isExpired(long now) {
+            return completed && now - expiresAt >= 0;
+        }
+    }
+
+    private static final class Key {
+        private final String[] endpoints;
+        private final VerifierArgs verifierArgs;
+
+        Key(String[] _endpoints, VerifierArgs _verifierArgs) {
+            endpoints = _endpoints.clone();
+            verifierArgs = _verifierArgs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return Arrays.equals(endpoints, that.endpoints) &&
+                    verifierArgs.equals(that.verifierArgs);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(endpoints) + verifierArgs.hashCode();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.torusresearch.torusutils.helpers;
+
+public class QuorumPolicy {
+    private int required;
+    private int maxFaults;
+
+    /**
+     * @param _required  number of good responses the predicate needs to succeed
+     * @param _maxFaults number of failed or rejected responses that can be tolerated
+     */
+    public QuorumPolicy(int _required, int _maxFaults) {
+        required = _required;
+        maxFaults = _maxFaults;
+    }
+
+    public int getRequired() {
+        return required;
+    }
+
+    public int getMaxFaults() {
+        return maxFaults;
+    }
+
+    public boolean isUnreachable(int total, int faults) {
+        return faults > maxFaults || total - faults < required;
+    }
+}
@@ -0,0 +1,11 @@
+package org.torusresearch.torusutils.helpers;
+
+/**
+ * Thrown by a {@link Predicate} when the result it was just given can never count towards the threshold, so that
+ * {@link Some} can count it as a fault.
+ */
+public class RejectedResponseException extends PredicateFailedException {
+    public RejectedResponseException(String errMessage) {
+        super(errMessage);
+    }
+}
@@ -1,15 +1,20 @@
 package org.torusresearch.torusutils.helpers;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class SHA512 {
-    public static byte[] digest(byte[] buf) {
+    // MessageDigest is not thread safe, so each thread keeps its own
+    private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-512");
-            digest.update(buf);
-            return digest.digest();
-        } catch (Exception e) {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
+    });
+
+    public static byte[] digest(byte[] buf) {
+        // digest() resets the instance for the next caller
+        return digests.get().digest(buf);
     }
 }
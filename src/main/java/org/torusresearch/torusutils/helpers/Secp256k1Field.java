@@ -0,0 +1,327 @@
+package org.torusresearch.torusutils.helpers;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the secp256k1 field prime p = 2^256 - 2^32 - 977.
+ * <p>
+ * Elements are fully reduced 256-bit values held in {@code int[8]}, least significant limb first. Operations write
+ * into a caller supplied output (which may alias an input) and never allocate; products take a 16 limb scratch
+ * array for the double width intermediate. The limbs are 32 bits wide so that every partial product fits a
+ * {@code long} on Java 8, which has no 64x64 to 128 bit multiply.
+ */
+public class Secp256k1Field {
+    public static final BigInteger P = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+
+    private static final long M = 0xFFFFFFFFL;
+    // 2^256 mod p = 2^32 + 977
+    private static final long PC = 977L;
+    private static final int[] P_LIMBS = {0xFFFFFC2F, 0xFFFFFFFE, -1, -1, -1, -1, -1, -1};
+
+    private Secp256k1Field() {
+    }
+
+    public static int[] create() {
+        return new int[8];
+    }
+
+    public static int[] createExt() {
+        return new int[16];
+    }
+
+    public static int[] fromBigInteger(BigInteger x) {
+        int[] z = new int[8];
+        fromBigInteger(x, z);
+        return z;
+    }
+
+    public static void fromBigInteger(BigInteger x, int[] z) {
+        if (x.signum() < 0 || x.bitLength() > 256) {
+            x = x.mod(P);
+        }
+        for (int i = 0; i < 8; i++) {
+            z[i] = x.shiftRight(32 * i).intValue();
+        }
+        if (gteP(z)) {
+            subP(z);
+        }
+    }
+
+    public static BigInteger toBigInteger(int[] x) {
+        byte[] bytes = new byte[32];
+        toBytes(x, bytes, 0);
+        return new BigInteger(1, bytes);
+    }
+
+    /**
+     * Reads a 32 byte big-endian value, which must be below p.
+     */
+    public static void fromBytes(byte[] bytes, int offset, int[] z) {
+        for (int i = 0; i < 8; i++) {
+            int o = offset + 28 - 4 * i;
+            z[i] = (bytes[o] & 0xFF) << 24 | (bytes[o + 1] & 0xFF) << 16 | (bytes[o + 2] & 0xFF) << 8 | (bytes[o + 3] & 0xFF);
+        }
+    }
+
+    /**
+     * Writes x as 32 big-endian bytes.
+     */
+    public static void toBytes(int[] x, byte[] bytes, int offset) {
+        for (int i = 0; i < 8; i++) {
+            int o = offset + 28 - 4 * i;
+            bytes[o] = (byte) (x[i] >>> 24);
+            bytes[o + 1] = (byte) (x[i] >>> 16);
+            bytes[o + 2] = (byte) (x[i] >>> 8);
+            bytes[o + 3] = (byte) x[i];
+        }
+    }
+
+    public static void copy(int[] x, int[] z) {
+        System.arraycopy(x, 0, z, 0, 8);
+    }
+
+    public static void setInt(int x, int[] z) {
+        z[0] = x;
+        for (int i = 1; i < 8; i++) {
+            z[i] = 0;
+        }
+    }
+
+    public static boolean isZero(int[] x) {
+        int bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits |= x[i];
+        }
+        return bits == 0;
+    }
+
+    public static boolean equals(int[] x, int[] y) {
+        int diff = 0;
+        for (int i = 0; i < 8; i++) {
+            diff |= x[i] ^ y[i];
+        }
+        return diff == 0;
+    }
+
+    public static boolean isOdd(int[] x) {
+        return (x[0] & 1) != 0;
+    }
+
+    public static void add(int[] x, int[] y, int[] z) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (x[i] & M) + (y[i] & M);
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        if (c != 0 || gteP(z)) {
+            subP(z);
+        }
+    }
+
+    public static void twice(int[] x, int[] z) {
+        add(x, x, z);
+    }
+
+    public static void sub(int[] x, int[] y, int[] z) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (x[i] & M) - (y[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+        if (c != 0) {
+            addP(z);
+        }
+    }
+
+    public static void negate(int[] x, int[] z) {
+        if (isZero(x)) {
+            setInt(0, z);
+            return;
+        }
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (P_LIMBS[i] & M) - (x[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+    /**
+     * z = x * m for a small non-negative multiplier m.
+     */
+    public static void mulSmall(int[] x, int m, int[] z) {
+        long c = 0;
+        long mm = m & M;
+        for (int i = 0; i < 8; i++) {
+            c += (x[i] & M) * mm;
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        reduceCarry(c, z);
+    }
+
+    public static void mul(int[] x, int[] y, int[] z, int[] tt) {
+        mulWide(x, y, tt);
+        reduce(tt, z);
+    }
+
+    public static void square(int[] x, int[] z, int[] tt) {
+        mulWide(x, x, tt);
+        reduce(tt, z);
+    }
+
+    /**
+     * z = x^(2^n), by n successive squarings.
+     */
+    public static void squareN(int[] x, int n, int[] z, int[] tt) {
+        copy(x, z);
+        for (int i = 0; i < n; i++) {
+            square(z, z, tt);
+        }
+    }
+
+    /**
+     * z = x^-1 = x^(p - 2), using the addition chain for p - 2 (255 squarings and 15 multiplications).
+     * The inverse of zero is zero. Unlike the other operations this allocates its few intermediates, as it is only
+     * needed once per affine conversion.
+     */
+    public static void invert(int[] x, int[] z, int[] tt) {
+        int[] x2 = new int[8];
+        int[] x3 = new int[8];
+        int[] x22 = new int[8];
+        int[] x88 = new int[8];
+        int[] t = new int[8];
+        int[] u = new int[8];
+
+        square(x, x2, tt);
+        mul(x2, x, x2, tt);
+        square(x2, x3, tt);
+        mul(x3, x, x3, tt);
+        squareN(x3, 3, t, tt);
+        mul(t, x3, t, tt);          // x6
+        squareN(t, 3, t, tt);
+        mul(t, x3, t, tt);          // x9
+        squareN(t, 2, t, tt);
+        mul(t, x2, u, tt);          // x11
+        squareN(u, 11, t, tt);
+        mul(t, u, x22, tt);         // x22
+        squareN(x22, 22, t, tt);
+        mul(t, x22, u, tt);         // x44
+        squareN(u, 44, t, tt);
+        mul(t, u, x88, tt);         // x88
+        squareN(x88, 88, t, tt);
+        mul(t, x88, t, tt);         // x176
+        squareN(t, 44, t, tt);
+        mul(t, u, t, tt);           // x220
+        squareN(t, 3, t, tt);
+        mul(t, x3, t, tt);          // x223
+        squareN(t, 23, t, tt);
+        mul(t, x22, t, tt);
+        squareN(t, 5, t, tt);
+        mul(t, x, t, tt);
+        squareN(t, 3, t, tt);
+        mul(t, x2, t, tt);
+        squareN(t, 2, t, tt);
+        mul(t, x, z, tt);
+    }
+
+    private static void mulWide(int[] x, int[] y, int[] zz) {
+        long y0 = y[0] & M;
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += y0 * (x[i] & M);
+            zz[i] = (int) c;
+            c >>>= 32;
+        }
+        zz[8] = (int) c;
+        for (int j = 1; j < 8; j++) {
+            long yj = y[j] & M;
+            c = 0;
+            for (int i = 0; i < 8; i++) {
+                c += yj * (x[i] & M) + (zz[i + j] & M);
+                zz[i + j] = (int) c;
+                c >>>= 32;
+            }
+            zz[j + 8] = (int) c;
+        }
+    }
+
+    /**
+     * Folds a 512-bit value into the field using 2^256 = 2^32 + 977 (mod p).
+     */
+    private static void reduce(int[] tt, int[] z) {
+        long c = 0;
+        long previousHigh = 0;
+        for (int i = 0; i < 8; i++) {
+            long high = tt[i + 8] & M;
+            c += (tt[i] & M) + high * PC + previousHigh;
+            z[i] = (int) c;
+            c >>>= 32;
+            previousHigh = high;
+        }
+        reduceCarry(c + previousHigh, z);
+    }
+
+    /**
+     * Adds {@code carry * 2^256} to z, folding it back in as {@code carry * (2^32 + 977)}.
+     */
+    private static void reduceCarry(long carry, int[] z) {
+        long c = (z[0] & M) + carry * PC;
+        z[0] = (int) c;
+        c >>>= 32;
+        c += (z[1] & M) + carry;
+        z[1] = (int) c;
+        c >>>= 32;
+        for (int i = 2; i < 8 && c != 0; i++) {
+            c += z[i] & M;
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        if (c != 0 || gteP(z)) {
+            subP(z);
+        }
+    }
+
+    private static boolean gteP(int[] z) {
+        for (int i = 7; i >= 0; i--) {
+            long zi = z[i] & M;
+            long pi = P_LIMBS[i] & M;
+            if (zi != pi) {
+                return zi > pi;
+            }
+        }
+        return true;
+    }
+
+    // z - p (mod 2^256), which is z + 2^32 + 977
+    private static void subP(int[] z) {
+        long c = (z[0] & M) + PC;
+        z[0] = (int) c;
+        c >>>= 32;
+        c += (z[1] & M) + 1;
+        z[1] = (int) c;
+        c >>>= 32;
+        for (int i = 2; i < 8 && c != 0; i++) {
+            c += z[i] & M;
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+    }
+
+    // z + p (mod 2^256), which is z - 2^32 - 977
+    private static void addP(int[] z) {
+        long c = (z[0] & M) - PC;
+        z[0] = (int) c;
+        c >>= 32;
+        c += (z[1] & M) - 1;
+        z[1] = (int) c;
+        c >>= 32;
+        for (int i = 2; i < 8 && c != 0; i++) {
+            c += z[i] & M;
+            z[i] = (int) c;
+            c >>= 32;
+        }
+    }
+}
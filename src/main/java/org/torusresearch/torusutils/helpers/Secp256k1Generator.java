@@ -0,0 +1,180 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.web3j.crypto.ECKeyPair;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * Fixed-base multiplication by the secp256k1 generator G.
+ * <p>
+ * The scalar is cut into 64 four-bit windows, and a table holds j * 16^i * G in affine coordinates for every window i
+ * and digit j. k * G is then the sum of one table entry per window: 64 mixed additions and no doublings. The table
+ * (960 points, about 60 KiB) is built on first use and shared by all threads.
+ * <p>
+ * The scalar is usually secret (a private key, or a candidate secret during key reconstruction), so the sequence of
+ * operations and memory accesses does not depend on it. Every window reads all 15 table entries of its row and keeps
+ * the one matching its digit with a mask. Every window performs an addition, with the complete formulas of Renes,
+ * Costello and Batina (eprint 2015/1060, algorithm 8) in homogeneous projective coordinates, which have no special
+ * cases for the point at infinity or for doubling. A zero digit adds a blank entry and then masks the sum away. The
+ * field operations keep their carry-dependent final reductions, as BouncyCastle's secp256k1 field does.
+ */
+public class Secp256k1Generator {
+    private static final int WINDOWS = 64;
+    private static final int DIGITS = 15;
+    private static final SecureRandom random = new SecureRandom();
+
+    private Secp256k1Generator() {
+    }
+
+    /**
+     * Computes k * G, for any integer k (it is reduced modulo n).
+     */
+    public static Secp256k1Point multiply(BigInteger k) {
+        return multiply(Secp256k1Scalar.fromBigInteger(k));
+    }
+
+    /**
+     * Computes k * G for a scalar already reduced into limbs (see {@link Secp256k1Scalar}).
+     */
+    public static Secp256k1Point multiply(int[] scalar) {
+        int[][] tableX = Table.X;
+        int[][] tableY = Table.Y;
+        Accumulator acc = new Accumulator();
+        int[] entryX = Secp256k1Field.create();
+        int[] entryY = Secp256k1Field.create();
+        for (int i = 0; i < WINDOWS; i++) {
+            int digit = scalar[i >>> 3] >>> ((i & 7) << 2) & 0xF;
+            // entry j is (j + 1) * 16^i * G, a zero digit selects nothing and leaves both coordinates zero
+            Secp256k1Field.setInt(0, entryX);
+            Secp256k1Field.setInt(0, entryY);
+            for (int j = 0; j < DIGITS; j++) {
+                int select = ((j + 1) ^ digit) - 1 >> 31;
+                int[] x = tableX[i * DIGITS + j];
+                int[] y = tableY[i * DIGITS + j];
+                for (int l = 0; l < 8; l++) {
+                    entryX[l] |= x[l] & select;
+                    entryY[l] |= y[l] & select;
+                }
+            }
+            acc.addAffine(entryX, entryY, (digit - 1) >> 31);
+        }
+        return acc.toPoint();
+    }
+
+    /**
+     * The uncompressed public key of a private key as a 512-bit integer, x followed by y, as web3j's
+     * {@code Sign.publicKeyFromPrivate} returns it.
+     */
+    public static BigInteger publicKeyFromPrivate(BigInteger privateKey) {
+        Secp256k1Point publicKey = multiply(privateKey);
+        return publicKey.getAffineX().shiftLeft(256).or(publicKey.getAffineY());
+    }
+
+    /**
+     * Creates a random key pair, with the private key drawn uniformly from [1, n - 1].
+     */
+    public static ECKeyPair createKeyPair() {
+        BigInteger privateKey;
+        do {
+            privateKey = new BigInteger(256, random);
+        } while (privateKey.signum() == 0 || privateKey.compareTo(Secp256k1Scalar.N) >= 0);
+        return new ECKeyPair(privateKey, publicKeyFromPrivate(privateKey));
+    }
+
+    /**
+     * A running sum in homogeneous projective coordinates (x / z, y / z), starting at the point at infinity (0, 1, 0).
+     */
+    private static final class Accumulator {
+        // 3 * b, with b = 7
+        private static final int B3 = 21;
+
+        private final int[] x = Secp256k1Field.create();
+        private final int[] y = Secp256k1Field.create();
+        private final int[] z = Secp256k1Field.create();
+        private final int[] x3 = Secp256k1Field.create();
+        private final int[] y3 = Secp256k1Field.create();
+        private final int[] z3 = Secp256k1Field.create();
+        private final int[] t0 = Secp256k1Field.create();
+        private final int[] t1 = Secp256k1Field.create();
+        private final int[] t2 = Secp256k1Field.create();
+        private final int[] t3 = Secp256k1Field.create();
+        private final int[] t4 = Secp256k1Field.create();
+        private final int[] tt = Secp256k1Field.createExt();
+
+        Accumulator() {
+            y[0] = 1;
+        }
+
+        /**
+         * Adds the affine point (x2, y2) unless {@code keep} is -1, in which case the sum is computed all the same
+         * and discarded.
+         */
+        void addAffine(int[] x2, int[] y2, int keep) {
+            Secp256k1Field.mul(x, x2, t0, tt);
+            Secp256k1Field.mul(y, y2, t1, tt);
+            Secp256k1Field.add(x2, y2, t3);
+            Secp256k1Field.add(x, y, t4);
+            Secp256k1Field.mul(t3, t4, t3, tt);
+            Secp256k1Field.add(t0, t1, t4);
+            Secp256k1Field.sub(t3, t4, t3);
+            Secp256k1Field.mul(y2, z, t4, tt);
+            Secp256k1Field.add(t4, y, t4);
+            Secp256k1Field.mul(x2, z, y3, tt);
+            Secp256k1Field.add(y3, x, y3);
+            Secp256k1Field.add(t0, t0, x3);
+            Secp256k1Field.add(x3, t0, t0);
+            Secp256k1Field.mulSmall(z, B3, t2);
+            Secp256k1Field.add(t1, t2, z3);
+            Secp256k1Field.sub(t1, t2, t1);
+            Secp256k1Field.mulSmall(y3, B3, y3);
+            Secp256k1Field.mul(t4, y3, x3, tt);
+            Secp256k1Field.mul(t3, t1, t2, tt);
+            Secp256k1Field.sub(t2, x3, x3);
+            Secp256k1Field.mul(y3, t0, y3, tt);
+            Secp256k1Field.mul(t1, z3, t1, tt);
+            Secp256k1Field.add(t1, y3, y3);
+            Secp256k1Field.mul(t0, t3, t0, tt);
+            Secp256k1Field.mul(z3, t4, z3, tt);
+            Secp256k1Field.add(z3, t0, z3);
+            for (int l = 0; l < 8; l++) {
+                x[l] = x[l] & keep | x3[l] & ~keep;
+                y[l] = y[l] & keep | y3[l] & ~keep;
+                z[l] = z[l] & keep | z3[l] & ~keep;
+            }
+        }
+
+        // (x / z, y / z) is (x * z / z^2, y * z^2 / z^3) in Jacobian coordinates
+        Secp256k1Point toPoint() {
+            int[] jx = Secp256k1Field.create();
+            int[] jy = Secp256k1Field.create();
+            int[] jz = z.clone();
+            Secp256k1Field.mul(x, z, jx, tt);
+            Secp256k1Field.square(z, t0, tt);
+            Secp256k1Field.mul(y, t0, jy, tt);
+            return new Secp256k1Point(jx, jy, jz);
+        }
+    }
+
+    // built on first use by the class loader, which also publishes it safely to other threads
+    private static final class Table {
+        static final int[][] X = new int[WINDOWS * DIGITS][];
+        static final int[][] Y = new int[WINDOWS * DIGITS][];
+
+        static {
+            Secp256k1Point.Workspace w = new Secp256k1Point.Workspace();
+            Secp256k1Point[] points = new Secp256k1Point[WINDOWS * DIGITS];
+            Secp256k1Point base = Secp256k1Point.generator();
+            for (int i = 0; i < WINDOWS; i++) {
+                Secp256k1Point multiple = base.copy();
+                for (int j = 0; j < DIGITS; j++) {
+                    points[i * DIGITS + j] = multiple.copy();
+                    w.add(multiple.x, multiple.y, multiple.z, base.x, base.y, base.z);
+                }
+                // multiple is now 16 * base
+                base = multiple;
+            }
+            w.toAffine(points, X, Y);
+        }
+    }
+}
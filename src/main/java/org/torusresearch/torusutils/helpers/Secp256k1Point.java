@@ -0,0 +1,500 @@
+package org.torusresearch.torusutils.helpers;
+
+import java.math.BigInteger;
+
+/**
+ * A secp256k1 point in Jacobian coordinates (x / z^2, y / z^3), with the point at infinity encoded as z == 0.
+ * <p>
+ * Points are immutable from the outside; the formulas work in place on {@link Workspace} registers. Variable base
+ * multiplication splits the scalar with the GLV endomorphism, k = k1 + k2 * lambda with k1 and k2 of about 128 bits,
+ * and walks both halves at once in width-5 NAF against affine tables of odd multiples of P and lambda * P. The
+ * endomorphism maps (x, y) to (beta * x, y), so the second table costs one field multiplication per entry.
+ */
+public class Secp256k1Point {
+    public static final BigInteger GX = new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16);
+    public static final BigInteger GY = new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16);
+
+    private static final BigInteger N = Secp256k1Scalar.N;
+    private static final BigInteger LAMBDA = new BigInteger("5363AD4CC05C30E0A5261C028812645A122E22EA20816678DF02967C1B23BD72", 16);
+    private static final int[] BETA = Secp256k1Field.fromBigInteger(new BigInteger("7AE96A2B657C07106E64479EAC3434E99CF0497512F58995C1396C28719501EE", 16));
+    // short basis of the lattice {(a, b) : a + b * lambda = 0 (mod n)}
+    private static final BigInteger A1 = new BigInteger("3086D221A7D46BCDE86C90E49284EB15", 16);
+    private static final BigInteger B1 = new BigInteger("-E4437ED6010E88286F547FA90ABFE4C3", 16);
+    private static final BigInteger A2 = new BigInteger("114CA50F7A8E2F3F657C1108D9D44CFD8", 16);
+    private static final BigInteger B2 = A1;
+    private static final BigInteger HALF_N = N.shiftRight(1);
+
+    static final int WINDOW = 5;
+    static final int TABLE_SIZE = 1 << (WINDOW - 2);
+
+    final int[] x;
+    final int[] y;
+    final int[] z;
+    // affine x and y, computed on first use
+    private int[][] normal;
+    private BigInteger affineX;
+    private BigInteger affineY;
+
+    Secp256k1Point(int[] x, int[] y, int[] z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public static Secp256k1Point fromAffine(BigInteger x, BigInteger y) {
+        int[] one = Secp256k1Field.create();
+        one[0] = 1;
+        return new Secp256k1Point(Secp256k1Field.fromBigInteger(x), Secp256k1Field.fromBigInteger(y), one);
+    }
+
+    public static Secp256k1Point infinity() {
+        return new Secp256k1Point(Secp256k1Field.create(), Secp256k1Field.create(), Secp256k1Field.create());
+    }
+
+    public static Secp256k1Point generator() {
+        return fromAffine(GX, GY);
+    }
+
+    public boolean isInfinity() {
+        return Secp256k1Field.isZero(z);
+    }
+
+    public BigInteger getAffineX() {
+        normalize();
+        if (affineX == null) {
+            affineX = Secp256k1Field.toBigInteger(normal[0]);
+        }
+        return affineX;
+    }
+
+    public BigInteger getAffineY() {
+        normalize();
+        if (affineY == null) {
+            affineY = Secp256k1Field.toBigInteger(normal[1]);
+        }
+        return affineY;
+    }
+
+    /**
+     * Writes the affine coordinates as 64 bytes, x then y, each 32 bytes big-endian.
+     */
+    public void toBytes(byte[] bytes, int offset) {
+        normalize();
+        Secp256k1Field.toBytes(normal[0], bytes, offset);
+        Secp256k1Field.toBytes(normal[1], bytes, offset + 32);
+    }
+
+    /**
+     * Reads a point from 64 bytes, x then y, each 32 bytes big-endian and below p. The point is not checked to be on
+     * the curve.
+     */
+    public static Secp256k1Point fromBytes(byte[] bytes, int offset) {
+        int[] x = Secp256k1Field.create();
+        int[] y = Secp256k1Field.create();
+        int[] one = Secp256k1Field.create();
+        Secp256k1Field.fromBytes(bytes, offset, x);
+        Secp256k1Field.fromBytes(bytes, offset + 32, y);
+        one[0] = 1;
+        return new Secp256k1Point(x, y, one);
+    }
+
+    private void normalize() {
+        if (normal == null) {
+            if (isInfinity()) {
+                throw new IllegalStateException("The point at infinity has no affine coordinates");
+            }
+            int[] tt = Secp256k1Field.createExt();
+            int[] zinv = Secp256k1Field.create();
+            int[] zinv2 = Secp256k1Field.create();
+            int[] ax = Secp256k1Field.create();
+            int[] ay = Secp256k1Field.create();
+            Secp256k1Field.invert(z, zinv, tt);
+            Secp256k1Field.square(zinv, zinv2, tt);
+            Secp256k1Field.mul(x, zinv2, ax, tt);
+            Secp256k1Field.mul(zinv2, zinv, zinv2, tt);
+            Secp256k1Field.mul(y, zinv2, ay, tt);
+            normal = new int[][]{ax, ay};
+        }
+    }
+
+    public Secp256k1Point negate() {
+        int[] ny = Secp256k1Field.create();
+        Secp256k1Field.negate(y, ny);
+        return new Secp256k1Point(x.clone(), ny, z.clone());
+    }
+
+    public Secp256k1Point add(Secp256k1Point other) {
+        Secp256k1Point r = copy();
+        new Workspace().add(r.x, r.y, r.z, other.x, other.y, other.z);
+        return r;
+    }
+
+    public Secp256k1Point twice() {
+        Secp256k1Point r = copy();
+        new Workspace().twice(r.x, r.y, r.z);
+        return r;
+    }
+
+    /**
+     * Compares two points without converting either to affine coordinates.
+     */
+    public boolean pointEquals(Secp256k1Point other) {
+        if (isInfinity() || other.isInfinity()) {
+            return isInfinity() && other.isInfinity();
+        }
+        int[] tt = Secp256k1Field.createExt();
+        int[] z1z1 = Secp256k1Field.create();
+        int[] z2z2 = Secp256k1Field.create();
+        int[] a = Secp256k1Field.create();
+        int[] b = Secp256k1Field.create();
+        Secp256k1Field.square(z, z1z1, tt);
+        Secp256k1Field.square(other.z, z2z2, tt);
+        // x1 * z2^2 == x2 * z1^2
+        Secp256k1Field.mul(x, z2z2, a, tt);
+        Secp256k1Field.mul(other.x, z1z1, b, tt);
+        if (!Secp256k1Field.equals(a, b)) {
+            return false;
+        }
+        // y1 * z2^3 == y2 * z1^3
+        Secp256k1Field.mul(z2z2, other.z, z2z2, tt);
+        Secp256k1Field.mul(z1z1, z, z1z1, tt);
+        Secp256k1Field.mul(y, z2z2, a, tt);
+        Secp256k1Field.mul(other.y, z1z1, b, tt);
+        return Secp256k1Field.equals(a, b);
+    }
+
+    /**
+     * Computes k * this, for any integer k (it is reduced modulo n).
+     */
+    public Secp256k1Point multiply(BigInteger k) {
+        k = k.mod(N);
+        if (isInfinity() || k.signum() == 0) {
+            return infinity();
+        }
+        BigInteger[] split = splitScalar(k);
+
+        Workspace w = new Workspace();
+        int[][] tableX = new int[TABLE_SIZE][];
+        int[][] tableY = new int[TABLE_SIZE][];
+        w.oddMultiples(this, tableX, tableY);
+        int[][] lambdaX = new int[TABLE_SIZE][];
+        int[][] lambdaY = new int[TABLE_SIZE][];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            lambdaX[i] = Secp256k1Field.create();
+            Secp256k1Field.mul(tableX[i], BETA, lambdaX[i], w.tt);
+            lambdaY[i] = tableY[i];
+        }
+
+        byte[] naf1 = wnaf(split[0].abs(), WINDOW);
+        byte[] naf2 = wnaf(split[1].abs(), WINDOW);
+        boolean negate1 = split[0].signum() < 0;
+        boolean negate2 = split[1].signum() < 0;
+
+        Secp256k1Point r = infinity();
+        int[] negY = Secp256k1Field.create();
+        for (int i = Math.max(naf1.length, naf2.length) - 1; i >= 0; i--) {
+            w.twice(r.x, r.y, r.z);
+            if (i < naf1.length && naf1[i] != 0) {
+                w.addDigit(r, naf1[i], negate1, tableX, tableY, negY);
+            }
+            if (i < naf2.length && naf2[i] != 0) {
+                w.addDigit(r, naf2[i], negate2, lambdaX, lambdaY, negY);
+            }
+        }
+        return r;
+    }
+
+    Secp256k1Point copy() {
+        return new Secp256k1Point(x.clone(), y.clone(), z.clone());
+    }
+
+    /**
+     * Splits k into (k1, k2) with k = k1 + k2 * lambda (mod n) and |k1|, |k2| below about 2^128, by rounding k onto
+     * the short lattice basis (a1, b1), (a2, b2).
+     */
+    static BigInteger[] splitScalar(BigInteger k) {
+        BigInteger c1 = B2.multiply(k).add(HALF_N).divide(N);
+        BigInteger c2 = B1.negate().multiply(k).add(HALF_N).divide(N);
+        BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+        BigInteger k2 = c1.multiply(B1).add(c2.multiply(B2)).negate();
+        return new BigInteger[]{k1, k2};
+    }
+
+    /**
+     * Width-w non-adjacent form of a non-negative k, least significant digit first. Non-zero digits are odd and lie
+     * in (-2^(w-1), 2^(w-1)), with at least w - 1 zeros between them.
+     */
+    static byte[] wnaf(BigInteger k, int width) {
+        byte[] naf = new byte[k.bitLength() + 1];
+        int[] limbs = new int[(k.bitLength() >>> 5) + 2];
+        for (int i = 0; i < limbs.length; i++) {
+            limbs[i] = k.shiftRight(32 * i).intValue();
+        }
+        int window = 1 << width;
+        int length = 0;
+        int position = 0;
+        while (!isZero(limbs)) {
+            if ((limbs[0] & 1) != 0) {
+                int digit = limbs[0] & (window - 1);
+                if (digit >= window >>> 1) {
+                    digit -= window;
+                    addSmall(limbs, -digit);
+                } else {
+                    subSmall(limbs, digit);
+                }
+                naf[position] = (byte) digit;
+                length = position + 1;
+            }
+            shiftRightOne(limbs);
+            position++;
+        }
+        if (length == naf.length) {
+            return naf;
+        }
+        byte[] trimmed = new byte[length];
+        System.arraycopy(naf, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    private static boolean isZero(int[] limbs) {
+        for (int limb : limbs) {
+            if (limb != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addSmall(int[] limbs, int value) {
+        long c = value;
+        for (int i = 0; i < limbs.length && c != 0; i++) {
+            c += limbs[i] & 0xFFFFFFFFL;
+            limbs[i] = (int) c;
+            c >>>= 32;
+        }
+    }
+
+    private static void subSmall(int[] limbs, int value) {
+        long c = -value;
+        for (int i = 0; i < limbs.length && c != 0; i++) {
+            c += limbs[i] & 0xFFFFFFFFL;
+            limbs[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+    private static void shiftRightOne(int[] limbs) {
+        for (int i = 0; i < limbs.length - 1; i++) {
+            limbs[i] = (limbs[i] >>> 1) | (limbs[i + 1] << 31);
+        }
+        limbs[limbs.length - 1] >>>= 1;
+    }
+
+    /**
+     * Scratch registers for the in-place Jacobian formulas, so a whole multiplication allocates only its tables.
+     */
+    static final class Workspace {
+        final int[] tt = Secp256k1Field.createExt();
+        private final int[] t0 = Secp256k1Field.create();
+        private final int[] t1 = Secp256k1Field.create();
+        private final int[] t2 = Secp256k1Field.create();
+        private final int[] t3 = Secp256k1Field.create();
+        private final int[] t4 = Secp256k1Field.create();
+        private final int[] t5 = Secp256k1Field.create();
+
+        // (x1, y1, z1) *= 2, dbl-2009-l for a == 0
+        void twice(int[] x1, int[] y1, int[] z1) {
+            if (Secp256k1Field.isZero(z1)) {
+                return;
+            }
+            int[] a = t0, b = t1, c = t2, d = t3, e = t4, f = t5;
+            Secp256k1Field.square(x1, a, tt);
+            Secp256k1Field.square(y1, b, tt);
+            Secp256k1Field.square(b, c, tt);
+            // d = 2 * ((x1 + b)^2 - a - c)
+            Secp256k1Field.add(x1, b, d);
+            Secp256k1Field.square(d, d, tt);
+            Secp256k1Field.sub(d, a, d);
+            Secp256k1Field.sub(d, c, d);
+            Secp256k1Field.twice(d, d);
+            Secp256k1Field.mulSmall(a, 3, e);
+            Secp256k1Field.square(e, f, tt);
+            // z3 = 2 * y1 * z1
+            Secp256k1Field.mul(y1, z1, z1, tt);
+            Secp256k1Field.twice(z1, z1);
+            // x3 = f - 2 * d
+            Secp256k1Field.twice(d, b);
+            Secp256k1Field.sub(f, b, x1);
+            // y3 = e * (d - x3) - 8 * c
+            Secp256k1Field.sub(d, x1, d);
+            Secp256k1Field.mul(e, d, y1, tt);
+            Secp256k1Field.mulSmall(c, 8, c);
+            Secp256k1Field.sub(y1, c, y1);
+        }
+
+        // (x1, y1, z1) += (x2, y2, 1), madd-2007-bl
+        void addAffine(int[] x1, int[] y1, int[] z1, int[] x2, int[] y2) {
+            if (Secp256k1Field.isZero(z1)) {
+                Secp256k1Field.copy(x2, x1);
+                Secp256k1Field.copy(y2, y1);
+                Secp256k1Field.setInt(1, z1);
+                return;
+            }
+            int[] z1z1 = t0, h = t1, hh = t2, r = t3, v = t4, j = t5;
+            Secp256k1Field.square(z1, z1z1, tt);
+            // h = x2 * z1z1 - x1
+            Secp256k1Field.mul(x2, z1z1, h, tt);
+            Secp256k1Field.sub(h, x1, h);
+            // r = 2 * (y2 * z1 * z1z1 - y1)
+            Secp256k1Field.mul(y2, z1, r, tt);
+            Secp256k1Field.mul(r, z1z1, r, tt);
+            Secp256k1Field.sub(r, y1, r);
+            if (Secp256k1Field.isZero(h)) {
+                if (Secp256k1Field.isZero(r)) {
+                    twice(x1, y1, z1);
+                } else {
+                    Secp256k1Field.setInt(0, z1);
+                }
+                return;
+            }
+            Secp256k1Field.twice(r, r);
+            Secp256k1Field.square(h, hh, tt);
+            // z3 = (z1 + h)^2 - z1z1 - hh
+            Secp256k1Field.add(z1, h, z1);
+            Secp256k1Field.square(z1, z1, tt);
+            Secp256k1Field.sub(z1, z1z1, z1);
+            Secp256k1Field.sub(z1, hh, z1);
+            // i = 4 * hh (in hh), j = h * i, v = x1 * i
+            Secp256k1Field.mulSmall(hh, 4, hh);
+            Secp256k1Field.mul(h, hh, j, tt);
+            Secp256k1Field.mul(x1, hh, v, tt);
+            // x3 = r^2 - j - 2 * v
+            Secp256k1Field.square(r, x1, tt);
+            Secp256k1Field.sub(x1, j, x1);
+            Secp256k1Field.twice(v, z1z1);
+            Secp256k1Field.sub(x1, z1z1, x1);
+            // y3 = r * (v - x3) - 2 * y1 * j
+            Secp256k1Field.mul(y1, j, j, tt);
+            Secp256k1Field.twice(j, j);
+            Secp256k1Field.sub(v, x1, v);
+            Secp256k1Field.mul(r, v, y1, tt);
+            Secp256k1Field.sub(y1, j, y1);
+        }
+
+        // (x1, y1, z1) += (x2, y2, z2), add-2007-bl
+        void add(int[] x1, int[] y1, int[] z1, int[] x2, int[] y2, int[] z2) {
+            if (Secp256k1Field.isZero(z2)) {
+                return;
+            }
+            if (Secp256k1Field.isZero(z1)) {
+                Secp256k1Field.copy(x2, x1);
+                Secp256k1Field.copy(y2, y1);
+                Secp256k1Field.copy(z2, z1);
+                return;
+            }
+            int[] z1z1 = t0, z2z2 = t1, u1 = t2, h = t3, s1 = t4, r = t5;
+            Secp256k1Field.square(z1, z1z1, tt);
+            Secp256k1Field.square(z2, z2z2, tt);
+            Secp256k1Field.mul(x1, z2z2, u1, tt);
+            // h = x2 * z1z1 - u1
+            Secp256k1Field.mul(x2, z1z1, h, tt);
+            Secp256k1Field.sub(h, u1, h);
+            // s1 = y1 * z2 * z2z2, r = 2 * (y2 * z1 * z1z1 - s1)
+            Secp256k1Field.mul(y1, z2, s1, tt);
+            Secp256k1Field.mul(s1, z2z2, s1, tt);
+            Secp256k1Field.mul(y2, z1, r, tt);
+            Secp256k1Field.mul(r, z1z1, r, tt);
+            Secp256k1Field.sub(r, s1, r);
+            if (Secp256k1Field.isZero(h)) {
+                if (Secp256k1Field.isZero(r)) {
+                    twice(x1, y1, z1);
+                } else {
+                    Secp256k1Field.setInt(0, z1);
+                }
+                return;
+            }
+            Secp256k1Field.twice(r, r);
+            // z3 = ((z1 + z2)^2 - z1z1 - z2z2) * h
+            Secp256k1Field.add(z1, z2, z1);
+            Secp256k1Field.square(z1, z1, tt);
+            Secp256k1Field.sub(z1, z1z1, z1);
+            Secp256k1Field.sub(z1, z2z2, z1);
+            Secp256k1Field.mul(z1, h, z1, tt);
+            // i = (2 * h)^2 (in z1z1), j = h * i (in h), v = u1 * i (in u1)
+            Secp256k1Field.twice(h, z1z1);
+            Secp256k1Field.square(z1z1, z1z1, tt);
+            Secp256k1Field.mul(h, z1z1, h, tt);
+            Secp256k1Field.mul(u1, z1z1, u1, tt);
+            // x3 = r^2 - j - 2 * v
+            Secp256k1Field.square(r, x1, tt);
+            Secp256k1Field.sub(x1, h, x1);
+            Secp256k1Field.twice(u1, z2z2);
+            Secp256k1Field.sub(x1, z2z2, x1);
+            // y3 = r * (v - x3) - 2 * s1 * j
+            Secp256k1Field.sub(u1, x1, u1);
+            Secp256k1Field.mul(r, u1, y1, tt);
+            Secp256k1Field.mul(s1, h, s1, tt);
+            Secp256k1Field.twice(s1, s1);
+            Secp256k1Field.sub(y1, s1, y1);
+        }
+
+        // r += digit * P from an affine odd multiples table, flipping the sign when the scalar half is negative
+        void addDigit(Secp256k1Point r, int digit, boolean negate, int[][] tableX, int[][] tableY, int[] negY) {
+            int index = (Math.abs(digit) - 1) >>> 1;
+            if ((digit < 0) != negate) {
+                Secp256k1Field.negate(tableY[index], negY);
+                addAffine(r.x, r.y, r.z, tableX[index], negY);
+            } else {
+                addAffine(r.x, r.y, r.z, tableX[index], tableY[index]);
+            }
+        }
+
+        /**
+         * Fills the tables with the affine coordinates of P, 3P, 5P, ..., normalized together with one inversion.
+         */
+        void oddMultiples(Secp256k1Point p, int[][] tableX, int[][] tableY) {
+            int size = tableX.length;
+            Secp256k1Point[] points = new Secp256k1Point[size];
+            points[0] = p.copy();
+            Secp256k1Point doubled = p.copy();
+            twice(doubled.x, doubled.y, doubled.z);
+            for (int i = 1; i < size; i++) {
+                points[i] = points[i - 1].copy();
+                add(points[i].x, points[i].y, points[i].z, doubled.x, doubled.y, doubled.z);
+            }
+            toAffine(points, tableX, tableY);
+        }
+
+        /**
+         * Converts non-infinite points to affine coordinates with Montgomery's trick: one inversion of the product of
+         * all z coordinates, then three multiplications per point to peel off the individual inverses.
+         */
+        void toAffine(Secp256k1Point[] points, int[][] affineX, int[][] affineY) {
+            int size = points.length;
+            int[][] prefix = new int[size][];
+            prefix[0] = points[0].z.clone();
+            for (int i = 1; i < size; i++) {
+                prefix[i] = Secp256k1Field.create();
+                Secp256k1Field.mul(prefix[i - 1], points[i].z, prefix[i], tt);
+            }
+            int[] inverse = Secp256k1Field.create();
+            Secp256k1Field.invert(prefix[size - 1], inverse, tt);
+            for (int i = size - 1; i >= 0; i--) {
+                int[] zinv = t0;
+                if (i > 0) {
+                    Secp256k1Field.mul(inverse, prefix[i - 1], zinv, tt);
+                    Secp256k1Field.mul(inverse, points[i].z, inverse, tt);
+                } else {
+                    Secp256k1Field.copy(inverse, zinv);
+                }
+                int[] zinv2 = t1;
+                Secp256k1Field.square(zinv, zinv2, tt);
+                affineX[i] = Secp256k1Field.create();
+                Secp256k1Field.mul(points[i].x, zinv2, affineX[i], tt);
+                Secp256k1Field.mul(zinv2, zinv, zinv2, tt);
+                affineY[i] = Secp256k1Field.create();
+                Secp256k1Field.mul(points[i].y, zinv2, affineY[i], tt);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.torusresearch.torusutils.helpers;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic modulo the secp256k1 group order n, in the same {@code int[8]} limb layout as {@link Secp256k1Field}.
+ * <p>
+ * Products are reduced by folding the high limbs back in as multiples of 2^256 - n, a 129-bit constant, so the
+ * double width scratch array is reduced in place and no intermediate is allocated.
+ */
+public class Secp256k1Scalar {
+    public static final BigInteger N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    private static final long M = 0xFFFFFFFFL;
+    private static final int[] N_LIMBS = {0xD0364141, 0xBFD25E8C, 0xAF48A03B, 0xBAAEDCE6, 0xFFFFFFFE, -1, -1, -1};
+    // 2^256 - n
+    private static final int[] NC = {0x2FC9BEBF, 0x402DA173, 0x50B75FC4, 0x45512319, 0x1};
+
+    private Secp256k1Scalar() {
+    }
+
+    public static int[] fromBigInteger(BigInteger x) {
+        int[] z = new int[8];
+        fromBigInteger(x, z);
+        return z;
+    }
+
+    public static void fromBigInteger(BigInteger x, int[] z) {
+        if (x.signum() < 0 || x.compareTo(N) >= 0) {
+            x = x.mod(N);
+        }
+        for (int i = 0; i < 8; i++) {
+            z[i] = x.shiftRight(32 * i).intValue();
+        }
+    }
+
+    public static BigInteger toBigInteger(int[] x) {
+        byte[] bytes = new byte[32];
+        Secp256k1Field.toBytes(x, bytes, 0);
+        return new BigInteger(1, bytes);
+    }
+
+    public static boolean isZero(int[] x) {
+        return Secp256k1Field.isZero(x);
+    }
+
+    public static void add(int[] x, int[] y, int[] z) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (x[i] & M) + (y[i] & M);
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+        if (c != 0 || gteN(z)) {
+            subN(z);
+        }
+    }
+
+    public static void sub(int[] x, int[] y, int[] z) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (x[i] & M) - (y[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+        if (c != 0) {
+            c = 0;
+            for (int i = 0; i < 8; i++) {
+                c += (z[i] & M) + (N_LIMBS[i] & M);
+                z[i] = (int) c;
+                c >>>= 32;
+            }
+        }
+    }
+
+    public static void negate(int[] x, int[] z) {
+        if (isZero(x)) {
+            Secp256k1Field.setInt(0, z);
+            return;
+        }
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (N_LIMBS[i] & M) - (x[i] & M);
+            z[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+    public static void mul(int[] x, int[] y, int[] z, int[] tt) {
+        long y0 = y[0] & M;
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += y0 * (x[i] & M);
+            tt[i] = (int) c;
+            c >>>= 32;
+        }
+        tt[8] = (int) c;
+        for (int j = 1; j < 8; j++) {
+            long yj = y[j] & M;
+            c = 0;
+            for (int i = 0; i < 8; i++) {
+                c += yj * (x[i] & M) + (tt[i + j] & M);
+                tt[i + j] = (int) c;
+                c >>>= 32;
+            }
+            tt[j + 8] = (int) c;
+        }
+        reduce(tt, z);
+    }
+
+    public static void square(int[] x, int[] z, int[] tt) {
+        mul(x, x, z, tt);
+    }
+
+    /**
+     * z = x^-1. The scalars inverted here (Lagrange denominators) are public, so this uses the variable time binary
+     * GCD behind {@link BigInteger#modInverse}, which is several times faster than a Fermat ladder in 32-bit limbs.
+     * The inverse of zero is zero.
+     */
+    public static void invert(int[] x, int[] z) {
+        if (isZero(x)) {
+            Secp256k1Field.setInt(0, z);
+            return;
+        }
+        fromBigInteger(toBigInteger(x).modInverse(N), z);
+    }
+
+    /**
+     * Reduces the 512-bit value in {@code tt} into z, folding each high limb from the top down as
+     * {@code tt[k] * 2^(32k) = tt[k] * (2^256 - n) * 2^(32(k - 8))}. A fold can carry back into the high half, so
+     * passes repeat until it is clear; past the first pass only a single small carry remains.
+     */
+    private static void reduce(int[] tt, int[] z) {
+        boolean high = true;
+        while (high) {
+            high = false;
+            for (int k = 15; k >= 8; k--) {
+                long w = tt[k] & M;
+                if (w == 0) {
+                    continue;
+                }
+                tt[k] = 0;
+                int offset = k - 8;
+                long c = 0;
+                for (int i = 0; i < NC.length; i++) {
+                    c += w * (NC[i] & M) + (tt[offset + i] & M);
+                    tt[offset + i] = (int) c;
+                    c >>>= 32;
+                }
+                for (int i = offset + NC.length; c != 0 && i < 16; i++) {
+                    c += tt[i] & M;
+                    tt[i] = (int) c;
+                    c >>>= 32;
+                    high |= i >= 8;
+                }
+            }
+        }
+        System.arraycopy(tt, 0, z, 0, 8);
+        if (gteN(z)) {
+            subN(z);
+        }
+    }
+
+    private static boolean gteN(int[] z) {
+        for (int i = 7; i >= 0; i--) {
+            long zi = z[i] & M;
+            long ni = N_LIMBS[i] & M;
+            if (zi != ni) {
+                return zi > ni;
+            }
+        }
+        return true;
+    }
+
+    // z - n (mod 2^256), which is z + (2^256 - n)
+    private static void subN(int[] z) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (z[i] & M) + (i < NC.length ? NC[i] & M : 0);
+            z[i] = (int) c;
+            c >>>= 32;
+        }
+    }
+}
@@ -2,45 +2,125 @@ package org.torusresearch.torusutils.helpers;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-public class Some<T>  {
-    private AtomicInteger finishedCount = new AtomicInteger(0);
-    private boolean resolved = false;
-    private String[] resultArr;
+/**
+ * Resolves with the first value the predicate produces while the promises complete.
+ * <p>
+ * Results are handed to the predicate one at a time as they arrive. Calls are serialized: the predicate is never
+ * invoked concurrently, each call happens-after the previous one, and no call is made once this has settled. This
+ * lets predicates accumulate state in plain fields instead of recomputing from every result on each arrival.
+ * <p>
+ * This fails as soon as every promise has settled without the predicate passing. With a {@link QuorumPolicy} it fails
+ * earlier, once failed promises plus results rejected by the predicate (see {@link RejectedResponseException}) make
+ * the required count unreachable.
+ */
+public class Some<R, T> {
+    private static final int PENDING = 0;
+    private static final int RESOLVED = 1;
+    private static final int FAILED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private final AtomicReferenceArray<R> resultArr;
+    // indexes whose results are published but not yet handed to the predicate, failed promises are queued as -(index + 1)
+    private final ConcurrentLinkedQueue<Integer> arrivals = new ConcurrentLinkedQueue<>();
+    // number of drain requests, whoever moves it from 0 becomes the (single) drainer
+    private final AtomicInteger wip = new AtomicInteger(0);
+    private final Predicate<R, T> predicate;
+    private final QuorumPolicy quorumPolicy;
+    private final CompletableFuture<T> completableFuture;
+    // only touched by the drainer
+    private int settledCount = 0;
+    private int faultCount = 0;
 
     public CompletableFuture<T> getCompletableFuture() {
         return completableFuture;
     }
 
-    private CompletableFuture<T> completableFuture;
+    public Some(List<CompletableFuture<R>> promises, Predicate<R, T> predicate) {
+        this(promises, null, predicate);
+    }
 
-    public Some(List<CompletableFuture<String>> promises, Predicate<T> predicate) {
-        resultArr = new String[promises.size()];
+    public Some(List<CompletableFuture<R>> promises, QuorumPolicy quorumPolicy, Predicate<R, T> predicate) {
+        this.predicate = predicate;
+        this.quorumPolicy = quorumPolicy;
+        resultArr = new AtomicReferenceArray<>(promises.size());
         completableFuture = new CompletableFuture<>();
+        // once resolved, failed or cancelled by the caller, the remaining requests are of no use
+        completableFuture.whenComplete((result, error) -> promises.forEach(promise -> promise.cancel(true)));
         for (int i = 0; i < promises.size(); i++) {
             int index = i;
-            promises.get(index).thenComposeAsync((response) -> {
-                resultArr[index] = response;
-                if (resolved) {
-                    return null;
-                }
-                try {
-                    T intermediateResult = predicate.call(resultArr.clone()).get();
-                    resolved = true;
-                    completableFuture.complete(intermediateResult);
-                } catch (Exception e) {
+            promises.get(index).whenCompleteAsync((response, error) -> {
+                if (error != null) {
                     // swallow exceptions due to threshold assumptions
+                    arrivals.offer(-(index + 1));
+                } else {
+                    resultArr.set(index, response);
+                    arrivals.offer(index);
                 }
-                return null;
-            }).exceptionally(e -> {
-                // swallow exceptions due to threshold assumptions
-                int count = finishedCount.incrementAndGet();
-                if (count == promises.size()) {
-                    completableFuture.completeExceptionally(new Exception("Unable to resolve enough promises"));
-                }
-                return null;
+                drain();
             });
         }
     }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Integer index;
+            while ((index = arrivals.poll()) != null) {
+                if (state.get() != PENDING || completableFuture.isDone()) {
+                    arrivals.clear();
+                    break;
+                }
+                settledCount++;
+                if (index < 0) {
+                    faultCount++;
+                } else {
+                    evaluate(index, resultArr.get(index));
+                }
+                checkReachable();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void evaluate(int index, R response) {
+        T intermediateResult;
+        try {
+            intermediateResult = predicate.call(index, response).get();
+        } catch (RejectedResponseException e) {
+            faultCount++;
+            return;
+        } catch (Exception e) {
+            // swallow exceptions due to threshold assumptions
+            return;
+        }
+        if (state.compareAndSet(PENDING, RESOLVED)) {
+            completableFuture.complete(intermediateResult);
+        }
+    }
+
+    private void checkReachable() {
+        if (state.get() != PENDING) {
+            return;
+        }
+        int total = resultArr.length();
+        if (quorumPolicy != null && quorumPolicy.isUnreachable(total, faultCount)) {
+            fail(new Exception("Unable to reach quorum, " + faultCount + " of " + total + " responses failed, "
+                    + quorumPolicy.getRequired() + " needed with at most " + quorumPolicy.getMaxFaults() + " failures"));
+        } else if (settledCount == total) {
+            fail(new Exception("Unable to resolve enough promises"));
+        }
+    }
+
+    private void fail(Exception e) {
+        if (state.compareAndSet(PENDING, FAILED)) {
+            completableFuture.completeExceptionally(e);
+        }
+    }
 }
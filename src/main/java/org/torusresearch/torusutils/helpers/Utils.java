@@ -1,6 +1,5 @@
 package org.torusresearch.torusutils.helpers;
 
-import com.google.gson.Gson;
 import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
 import org.torusresearch.torusutils.apis.*;
@@ -14,10 +13,10 @@ public class Utils {
     private Utils() {
     }
 
-    public static String thresholdSame(String[] arr, int threshold) {
-        HashMap<String, Integer> hashMap = new HashMap();
+    public static <T> T thresholdSame(T[] arr, int threshold) {
+        HashMap<T, Integer> hashMap = new HashMap<>();
         for (int i = 0; i < arr.length; i++) {
-            Integer currentCount = hashMap.getOrDefault(arr[i], new Integer(0));
+            Integer currentCount = hashMap.getOrDefault(arr[i], 0);
             Integer incrementedCount = currentCount + 1;
             if (incrementedCount == threshold) {
                 return arr[i];
@@ -27,12 +26,22 @@ public class Utils {
         return null;
     }
 
-    public static String thresholdSame(List<String> list, int threshold) {
-        String[] arr = new String[list.size()];
-        list.toArray(arr);
-        return Utils.thresholdSame(arr, threshold);
+    public static <T> T thresholdSame(List<T> list, int threshold) {
+        HashMap<T, Integer> hashMap = new HashMap<>();
+        for (T item : list) {
+            Integer incrementedCount = hashMap.getOrDefault(item, 0) + 1;
+            if (incrementedCount == threshold) {
+                return item;
+            }
+            hashMap.put(item, incrementedCount);
+        }
+        return null;
     }
 
+    /**
+     * @deprecated materializes every subset up front; use {@link Combinations} to step through them lazily.
+     */
+    @Deprecated
     public static List<List<Integer>> kCombinations(int s, int k) {
         List<Integer> set = new ArrayList();
         for (int i = 0; i < s; i++) {
@@ -41,6 +50,10 @@ public class Utils {
         return kCombinations(set, k);
     }
 
+    /**
+     * @deprecated materializes every subset up front; use {@link Combinations} to step through them lazily.
+     */
+    @Deprecated
     public static List<List<Integer>> kCombinations(List<Integer> set, int k) {
         List<List<Integer>> combs = new ArrayList();
         if (k > set.size()) {
@@ -73,48 +86,46 @@ public class Utils {
     }
 
     public static CompletableFuture<KeyLookupResult> keyLookup(String[] endpoints, String verifier, String verifierId) {
+        return keyLookup(endpoints, verifier, verifierId, APIUtils.getRequestTimeoutMillis());
+    }
+
+    public static CompletableFuture<KeyLookupResult> keyLookup(String[] endpoints, String verifier, String verifierId, long timeoutMillis) {
         int k = Math.floorDiv(endpoints.length, 2) + 1;
-        List<CompletableFuture<String>> lookupPromises = new ArrayList<>();
+        List<CompletableFuture<JsonRPCResponse<VerifierLookupRequestResult>>> lookupPromises = new ArrayList<>();
+        byte[] lookupRequest = APIUtils.generateJsonRPCBody("VerifierLookupRequest", new VerifierLookupRequestParams(verifier, verifierId));
         for (int i = 0; i < endpoints.length; i++) {
-            lookupPromises.add(i, APIUtils.post(endpoints[i], APIUtils.generateJsonRPCObject("VerifierLookupRequest", new VerifierLookupRequestParams(verifier, verifierId))));
+            lookupPromises.add(i, APIUtils.postJsonRPC(endpoints[i], lookupRequest, VerifierLookupRequestResult.class, timeoutMillis));
         }
-        return new Some<KeyLookupResult>(lookupPromises, lookupResults -> {
-            try {
-                List<String> lookupShares = Arrays.asList(lookupResults)
-                        .stream()
-                        .filter(x -> x != "")
-                        .collect(Collectors.toList());
-                List<String> errorResults = lookupShares.stream().map(rpcResponse -> {
-                    try {
-                        Gson gson = new Gson();
-                        return gson.fromJson(rpcResponse, JsonRPCResponse.class).getError().getData();
-                    } catch (Exception e) {
-                        return "";
-                    }
-                }).collect(Collectors.toList());
-                String errorResult = thresholdSame(errorResults, k);
-                List<String> keyResults = lookupShares.stream().map(rpcResponse -> {
-                    try {
-                        Gson gson = new Gson();
-                        return gson.toJson(gson.fromJson(rpcResponse, JsonRPCResponse.class).getResult());
-                    } catch (Exception e) {
-                        return "";
-                    }
-                }).collect(Collectors.toList());
-                String keyResult = thresholdSame(keyResults, k);
-                if (errorResult != "" || keyResult != "") {
-                    return CompletableFuture.completedFuture(new KeyLookupResult(keyResult, errorResult));
-                }
-                CompletableFuture<KeyLookupResult> failedFuture = new CompletableFuture<>();
-                failedFuture.completeExceptionally(new Exception("invalid "));
-                return failedFuture;
-            } catch (Exception e) {
-                return null;
+        List<String> errorResults = new ArrayList<>();
+        List<VerifierLookupRequestResult> keyResults = new ArrayList<>();
+        return new Some<>(lookupPromises, new QuorumPolicy(k, endpoints.length - k), (index, lookupResult) -> {
+            if (lookupResult == null || (lookupResult.getError() == null && lookupResult.getResult() == null)) {
+                throw new RejectedResponseException("empty lookup response");
+            }
+            if (lookupResult.getError() != null && lookupResult.getError().getData() != null) {
+                errorResults.add(lookupResult.getError().getData());
+            }
+            if (lookupResult.getResult() != null) {
+                keyResults.add(lookupResult.getResult());
             }
+            String errorResult = thresholdSame(errorResults, k);
+            VerifierLookupRequestResult keyResult = thresholdSame(keyResults, k);
+            if (errorResult != null || keyResult != null) {
+                return CompletableFuture.completedFuture(new KeyLookupResult(keyResult, errorResult));
+            }
+            throw new PredicateFailedException("insufficient matching lookup responses");
         }).getCompletableFuture();
     }
 
     public static CompletableFuture<KeyLookupResult> keyAssign(String[] endpoints, TorusNodePub[] torusNodePubs, Integer lastPoint, Integer firstPoint, String verifier, String verifierId) {
+        return keyAssign(endpoints, torusNodePubs, lastPoint, firstPoint, verifier, verifierId, APIUtils.getRequestTimeoutMillis());
+    }
+
+    /**
+     * Asks one node after the other to assign a key, until one does. {@code timeoutMillis} applies to each request to
+     * the signer and to each node.
+     */
+    public static CompletableFuture<KeyLookupResult> keyAssign(String[] endpoints, TorusNodePub[] torusNodePubs, Integer lastPoint, Integer firstPoint, String verifier, String verifierId, long timeoutMillis) {
         Integer nodeNum, initialPoint = null;
         CompletableFuture<KeyLookupResult> completableFuture = new CompletableFuture<>();
 
@@ -131,30 +142,27 @@ public class Utils {
         if (firstPoint != null) {
             initialPoint = firstPoint;
         }
-        String data = APIUtils.generateJsonRPCObject("KeyAssign", new KeyAssignParams(verifier, verifierId));
+        byte[] data = APIUtils.generateJsonRPCBody("KeyAssign", new KeyAssignParams(verifier, verifierId));
         Header[] headers = new Header[2];
         headers[0] = new BasicHeader("pubkeyx", torusNodePubs[nodeNum].getX());
         headers[1] = new BasicHeader("pubkeyy", torusNodePubs[nodeNum].getY());
         Integer finalInitialPoint = initialPoint;
-        CompletableFuture<String> apir = APIUtils.post("https://signer.tor.us/api/sign", data, headers);
-        apir.thenComposeAsync(signedData -> {
-            Gson gson = new Gson();
-            SignerResponse signerResponse = gson.fromJson(signedData, SignerResponse.class);
+        CompletableFuture<SignerResponse> apir = APIUtils.post("https://signer.tor.us/api/sign", data, headers, SignerResponse.class, timeoutMillis);
+        apir.thenComposeAsync(signerResponse -> {
             Header[] signerHeaders = new Header[3];
             signerHeaders[0] = new BasicHeader("torus-timestamp", signerResponse.getTorus_timestamp());
             signerHeaders[1] = new BasicHeader("torus-nonce", signerResponse.getTorus_nonce());
             signerHeaders[2] = new BasicHeader("torus-signature", signerResponse.getTorus_signature());
 
-            CompletableFuture<String> cf = APIUtils.post(endpoints[nodeNum], data, signerHeaders);
-            cf.thenComposeAsync(resp -> {
+            CompletableFuture<JsonRPCResponse<VerifierLookupRequestResult>> cf = APIUtils.postJsonRPC(endpoints[nodeNum], data, signerHeaders, VerifierLookupRequestResult.class, timeoutMillis);
+            // a node that fails or times out is skipped like one that answers without a key
+            cf.handleAsync((jsonRPCResponse, error) -> {
                 try {
-                    Gson gsonTemp = new Gson();
-                    JsonRPCResponse jsonRPCResponse = gson.fromJson(resp, JsonRPCResponse.class);
-                    String result = jsonRPCResponse.getResult().toString();
-                    if (result != null && !result.equals("")) {
+                    VerifierLookupRequestResult result = error == null ? jsonRPCResponse.getResult() : null;
+                    if (result != null && result.getKeys() != null && result.getKeys().length > 0) {
                         completableFuture.complete(new KeyLookupResult(result, null));
                     } else {
-                        Utils.keyAssign(endpoints, torusNodePubs, nodeNum + 1, finalInitialPoint, verifier, verifierId).thenComposeAsync(nextResp -> {
+                        Utils.keyAssign(endpoints, torusNodePubs, nodeNum + 1, finalInitialPoint, verifier, verifierId, timeoutMillis).thenComposeAsync(nextResp -> {
                             completableFuture.complete(nextResp);
                             return completableFuture;
                         }).exceptionally(ex -> {
@@ -163,7 +171,7 @@ public class Utils {
                         });
                     }
                 } catch (Exception e) {
-                    Utils.keyAssign(endpoints, torusNodePubs, nodeNum + 1, finalInitialPoint, verifier, verifierId).thenComposeAsync(nextResp -> {
+                    Utils.keyAssign(endpoints, torusNodePubs, nodeNum + 1, finalInitialPoint, verifier, verifierId, timeoutMillis).thenComposeAsync(nextResp -> {
                         completableFuture.complete(nextResp);
                         return completableFuture;
                     }).exceptionally(ex -> {
@@ -1,5 +1,7 @@
 package org.torusresearch.torusutils.types;
 
+import java.util.Objects;
+
 public class VerifierArgs {
     private String verifier;
     private String verifierId;
@@ -15,4 +17,18 @@ public class VerifierArgs {
     public String getVerifierId() {
         return verifierId;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifierArgs that = (VerifierArgs) o;
+        return Objects.equals(verifier, that.verifier) &&
+                Objects.equals(verifierId, that.verifierId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(verifier, verifierId);
+    }
 }
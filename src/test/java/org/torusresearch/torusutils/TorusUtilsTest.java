@@ -0,0 +1,107 @@
+package org.torusresearch.torusutils;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.torusresearch.torusutils.apis.APIUtils;
+import org.torusresearch.torusutils.apis.HttpClientOptions;
+import org.torusresearch.torusutils.apis.inmemory.SimulatedTorusCluster;
+import org.torusresearch.torusutils.types.RetrieveSharesResponse;
+import org.torusresearch.torusutils.types.TorusPublicKey;
+import org.torusresearch.torusutils.types.VerifierArgs;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TorusUtilsTest {
+    private static final String VERIFIER = "google";
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final long SLOW_MILLIS = 200;
+
+    @AfterClass
+    public static void restoreTransport() throws Exception {
+        APIUtils.setHttpClientOptions(new HttpClientOptions());
+    }
+
+    @Test
+    public void recoversKeyWithFaultyNodes() throws Exception {
+        for (int nodes : new int[]{5, 9, 13}) {
+            SimulatedTorusCluster cluster = new SimulatedTorusCluster(nodes);
+            int t = cluster.getMaxMalicious();
+            // the commitment phase needs k + t answers, so the rest may be offline
+            int offline = nodes - (cluster.getThreshold() + t);
+            for (int i = 0; i < t; i++) {
+                cluster.getNode(i).setMalicious(true);
+            }
+            for (int i = t; i < t + offline; i++) {
+                cluster.getNode(i).setOffline(true);
+            }
+            // the remaining honest nodes answer late, and one of them later still
+            for (int i = t + offline; i < nodes; i++) {
+                cluster.getNode(i).setLatencyMillis(i == nodes - 1 ? 4 * SLOW_MILLIS : SLOW_MILLIS);
+            }
+            APIUtils.setTransport(cluster.createTransport());
+
+            for (int round = 0; round < 3; round++) {
+                String verifierId = "user" + round + "@tor.us";
+                TorusPublicKey publicKey = TorusUtils.getPublicAddress(cluster.getEndpoints(), cluster.getNodePubs(), new VerifierArgs(VERIFIER, verifierId), true)
+                        .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                RetrieveSharesResponse response = retrieveShares(cluster, verifierId).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+                String message = nodes + " nodes, " + verifierId;
+                assertEquals(message, publicKey.getAddress().toLowerCase(), response.getEthAddress().toLowerCase());
+                assertEquals(message, response.getEthAddress().toLowerCase(), "0x" + TorusUtils.generateAddressFromPrivKey(response.getPrivKey()));
+                assertEquals(message, 64, response.getPrivKey().length());
+            }
+        }
+    }
+
+    @Test
+    public void failsFastWithTooManyOfflineNodes() throws Exception {
+        for (int nodes : new int[]{5, 9, 13}) {
+            SimulatedTorusCluster cluster = new SimulatedTorusCluster(nodes);
+            APIUtils.setTransport(cluster.createTransport());
+            String verifierId = "offline@tor.us";
+            TorusUtils.getPublicAddress(cluster.getEndpoints(), cluster.getNodePubs(), new VerifierArgs(VERIFIER, verifierId), true)
+                    .get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+            // one node more than the commitment quorum can spare is offline, and the others would answer only after
+            // the deadline below
+            int offline = nodes - (cluster.getThreshold() + cluster.getMaxMalicious()) + 1;
+            for (int i = 0; i < nodes; i++) {
+                if (i < offline) {
+                    cluster.getNode(i).setOffline(true);
+                } else {
+                    cluster.getNode(i).setLatencyMillis(TIMEOUT_MILLIS);
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                retrieveShares(cluster, verifierId).get(TIMEOUT_MILLIS / 2, TimeUnit.MILLISECONDS);
+                fail("expected retrieveShares to fail");
+            } catch (ExecutionException e) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TIMEOUT_MILLIS / 2);
+                assertTrue(causeMessages(e), causeMessages(e).contains("Unable to reach quorum, " + offline + " of " + nodes + " responses failed"));
+            }
+        }
+    }
+
+    private static CompletableFuture<RetrieveSharesResponse> retrieveShares(SimulatedTorusCluster cluster, String verifierId) throws Exception {
+        HashMap<String, Object> verifierParams = new HashMap<>();
+        verifierParams.put("verifier_id", verifierId);
+        return TorusUtils.retrieveShares(cluster.getEndpoints(), cluster.getIndexes(), VERIFIER, verifierParams, "idtoken-" + verifierId, TIMEOUT_MILLIS, TIMEOUT_MILLIS);
+    }
+
+    private static String causeMessages(Throwable e) {
+        StringBuilder messages = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            messages.append(cause.getMessage()).append('\n');
+        }
+        return messages.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class Base64Test {
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void matchesJavaUtilBase64() throws Exception {
+        Random random = new Random(61);
+        java.util.Base64.Encoder encoder = java.util.Base64.getEncoder();
+        java.util.Base64.Encoder mime = java.util.Base64.getMimeEncoder();
+        java.util.Base64.Encoder unpadded = java.util.Base64.getEncoder().withoutPadding();
+        for (int round = 0; round < ROUNDS; round++) {
+            // mostly short inputs, some long enough to outgrow the encode buffer and to wrap several MIME lines
+            byte[] data = new byte[round % 100 == 0 ? random.nextInt(4096) : random.nextInt(160)];
+            random.nextBytes(data);
+            String message = Arrays.toString(data);
+
+            String encoded = encoder.encodeToString(data);
+            assertEquals(message, encoded, Base64.encodeBytes(data));
+            assertDecodes(message, data, encoded);
+            assertDecodes(message, data, mime.encodeToString(data));
+            assertDecodes(message, data, unpadded.encodeToString(data));
+
+            // a slice, and into an array at an offset
+            int off = data.length == 0 ? 0 : random.nextInt(data.length);
+            int len = random.nextInt(data.length - off + 1);
+            assertEquals(message, encoder.encodeToString(Arrays.copyOfRange(data, off, off + len)), Base64.encodeBytes(data, off, len));
+            byte[] out = new byte[3 + Base64.decodedLength(encoded)];
+            assertEquals(message, data.length, Base64.decode(encoded, out, 3));
+            assertArrayEquals(message, data, Arrays.copyOfRange(out, 3, 3 + data.length));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        for (String malformed : new String[]{"QUJD!", "QU=JD", "QUJDR", "Q===", "QUJD=", "QQ==QQ==", "QUJ\u00e9", "=QUJ"}) {
+            assertRejected(malformed);
+        }
+    }
+
+    private static void assertDecodes(String message, byte[] expected, String encoded) throws IOException {
+        assertArrayEquals(message, expected, Base64.decode(encoded));
+        byte[] bytes = encoded.getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(message, expected, Base64.decode(bytes));
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+        buffer.put((byte) 'x').put(bytes).flip().position(1);
+        assertArrayEquals(message, expected, Base64.decode(buffer));
+        assertEquals(message, buffer.limit(), buffer.position());
+    }
+
+    private static void assertRejected(String malformed) {
+        try {
+            Base64.decode(malformed);
+            fail("expected " + malformed + " to be rejected");
+        } catch (IOException expected) {
+        }
+        try {
+            Base64.decode(malformed.getBytes(StandardCharsets.UTF_8));
+            fail("expected " + malformed + " to be rejected");
+        } catch (IOException expected) {
+        }
+    }
+}
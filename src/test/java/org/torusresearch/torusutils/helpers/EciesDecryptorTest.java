@@ -0,0 +1,157 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class EciesDecryptorTest {
+    private static final X9ECParameters CURVE = CustomNamedCurves.getByName("secp256k1");
+    private static final BigInteger N = CURVE.getN();
+    private static final int SHARES = 8;
+
+    @Test
+    public void decryptsEccryptoShares() throws Exception {
+        Random random = new Random(51);
+        BigInteger privateKey = new BigInteger(256, random).mod(N);
+        ECPoint publicKey = CURVE.getG().multiply(privateKey);
+        Batch batch = new Batch(publicKey, random);
+        // a shared secret with a leading zero byte, which the KDF hashes without it
+        batch.shares[0] = encrypt(publicKey, batch.plaintexts[0], random, true);
+
+        EciesDecryptor decryptor = new EciesDecryptor(privateKey);
+        byte[][] decrypted = decryptor.decryptShares(batch.column(0), batch.column(1), batch.column(2), batch.column(3));
+        for (int i = 0; i < SHARES; i++) {
+            assertArrayEquals(batch.plaintexts[i], decrypted[i]);
+            String[] share = batch.shares[i];
+            assertArrayEquals(batch.plaintexts[i], decryptor.decryptShare(share[0], share[1], share[2], share[3]));
+        }
+    }
+
+    @Test
+    public void rejectsOnlyTheTamperedShares() throws Exception {
+        Random random = new Random(52);
+        BigInteger privateKey = new BigInteger(256, random).mod(N);
+        ECPoint publicKey = CURVE.getG().multiply(privateKey);
+        EciesDecryptor decryptor = new EciesDecryptor(privateKey);
+
+        // a flipped MAC byte
+        Batch flippedMac = new Batch(publicKey, random);
+        char[] mac = flippedMac.shares[2][2].toCharArray();
+        mac[7] = mac[7] == '0' ? '1' : '0';
+        flippedMac.shares[2][2] = new String(mac);
+        assertOnlyRejected(flippedMac, decryptor.decryptShares(flippedMac.column(0), flippedMac.column(1), flippedMac.column(2), flippedMac.column(3)), 2);
+        assertFails(decryptor, flippedMac.shares[2]);
+
+        // an ephemeral public key that is not on the curve
+        Batch offCurve = new Batch(publicKey, random);
+        byte[] ephemPublicKey = Hex.decode(offCurve.shares[5][0]);
+        ephemPublicKey[64] ^= 1;
+        offCurve.shares[5][0] = Hex.toHexString(ephemPublicKey);
+        assertOnlyRejected(offCurve, decryptor.decryptShares(offCurve.column(0), offCurve.column(1), offCurve.column(2), offCurve.column(3)), 5);
+        assertFails(decryptor, offCurve.shares[5]);
+
+        // both, plus a share without a MAC and one that is not base64, in one batch
+        Batch mixed = new Batch(publicKey, random);
+        mixed.shares[1][2] = flippedMac.shares[2][2];
+        mixed.shares[3][0] = offCurve.shares[5][0];
+        mixed.shares[4][2] = null;
+        mixed.shares[6][3] = "not base64!";
+        assertOnlyRejected(mixed, decryptor.decryptShares(mixed.column(0), mixed.column(1), mixed.column(2), mixed.column(3)), 1, 3, 4, 6);
+    }
+
+    private static void assertOnlyRejected(Batch batch, byte[][] decrypted, int... rejected) {
+        for (int i = 0; i < SHARES; i++) {
+            int index = i;
+            if (Arrays.stream(rejected).anyMatch(r -> r == index)) {
+                assertNull("share " + i, decrypted[i]);
+            } else {
+                assertArrayEquals("share " + i, batch.plaintexts[i], decrypted[i]);
+            }
+        }
+    }
+
+    private static void assertFails(EciesDecryptor decryptor, String[] share) throws Exception {
+        try {
+            decryptor.decryptShare(share[0], share[1], share[2], share[3]);
+            fail("expected the share to be rejected");
+        } catch (GeneralSecurityException expected) {
+        }
+    }
+
+    /**
+     * Encrypts as eccrypto does: ECDH with a fresh ephemeral key, SHA-512 of the shared x coordinate without leading
+     * zero bytes, AES-256-CBC with the first half of the hash and HMAC-SHA256 over iv, ephemeral public key and
+     * ciphertext with the second half. Returns the ephemeral public key, iv and MAC as hex and the ciphertext the way
+     * the nodes send it, base64 of its hex string.
+     */
+    private static String[] encrypt(ECPoint publicKey, byte[] plaintext, Random random, boolean leadingZero) throws Exception {
+        BigInteger ephemPrivateKey;
+        BigInteger sharedX;
+        do {
+            ephemPrivateKey = new BigInteger(256, random).mod(N);
+            sharedX = publicKey.multiply(ephemPrivateKey).normalize().getAffineXCoord().toBigInteger();
+        } while (leadingZero && sharedX.bitLength() > 248);
+        byte[] ephemPublicKey = CURVE.getG().multiply(ephemPrivateKey).getEncoded(false);
+        byte[] hash = MessageDigest.getInstance("SHA-512").digest(unsigned(sharedX));
+        byte[] iv = new byte[16];
+        random.nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(hash, 0, 32, "AES"), new IvParameterSpec(iv));
+        byte[] ciphertext = cipher.doFinal(plaintext);
+        Mac hmac = Mac.getInstance("HmacSHA256");
+        hmac.init(new SecretKeySpec(hash, 32, 32, "HmacSHA256"));
+        hmac.update(iv);
+        hmac.update(ephemPublicKey);
+        hmac.update(ciphertext);
+        byte[] mac = hmac.doFinal();
+
+        String share = java.util.Base64.getEncoder().encodeToString(Hex.toHexString(ciphertext).getBytes(StandardCharsets.UTF_8));
+        return new String[]{Hex.toHexString(ephemPublicKey), Hex.toHexString(iv), Hex.toHexString(mac), share};
+    }
+
+    // big-endian bytes without leading zeros, like bn.js toArray
+    private static byte[] unsigned(BigInteger x) {
+        byte[] bytes = x.toByteArray();
+        return bytes[0] == 0 && bytes.length > 1 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static final class Batch {
+        private final byte[][] plaintexts = new byte[SHARES][];
+        private final String[][] shares = new String[SHARES][];
+
+        Batch(ECPoint publicKey, Random random) throws Exception {
+            for (int i = 0; i < SHARES; i++) {
+                plaintexts[i] = new byte[1 + random.nextInt(64)];
+                random.nextBytes(plaintexts[i]);
+                shares[i] = encrypt(publicKey, plaintexts[i], random, false);
+            }
+        }
+
+        // ephemeral public keys, ivs, MACs or shares
+        String[] column(int field) {
+            String[] column = new String[SHARES];
+            for (int i = 0; i < SHARES; i++) {
+                column[i] = shares[i][field];
+            }
+            return column;
+        }
+    }
+}
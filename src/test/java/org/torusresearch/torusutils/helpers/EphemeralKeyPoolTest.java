@@ -0,0 +1,42 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Sign;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EphemeralKeyPoolTest {
+    @Test
+    public void handsOutDistinctValidKeyPairs() throws Exception {
+        Set<BigInteger> privateKeys = new HashSet<>();
+        try (EphemeralKeyPool pool = new EphemeralKeyPool(8)) {
+            // drains the pool and then outruns the refill thread, so both paths of take are used
+            for (int i = 0; i < 64; i++) {
+                ECKeyPair keyPair = pool.take();
+                assertTrue(keyPair.getPrivateKey().signum() > 0 && keyPair.getPrivateKey().compareTo(Secp256k1Scalar.N) < 0);
+                assertEquals(Sign.publicKeyFromPrivate(keyPair.getPrivateKey()), keyPair.getPublicKey());
+                assertTrue(privateKeys.add(keyPair.getPrivateKey()));
+            }
+        }
+    }
+
+    @Test
+    public void refillsAndEmptiesOnClose() throws Exception {
+        EphemeralKeyPool pool = new EphemeralKeyPool(4);
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (pool.size() < 4 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+        assertEquals(4, pool.size());
+        pool.close();
+        assertEquals(0, pool.size());
+        ECKeyPair keyPair = pool.take();
+        assertEquals(Sign.publicKeyFromPrivate(keyPair.getPrivateKey()), keyPair.getPublicKey());
+    }
+}
@@ -0,0 +1,92 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class HexCodecTest {
+    @Test
+    public void keepsLeadingZerosAtFullWidth() {
+        Random random = new Random(71);
+        for (int round = 0; round < 5000; round++) {
+            // every number of leading zero bits, from none to all
+            BigInteger value = new BigInteger(256 - round % 257, random);
+            String hex = String.format("%064x", value);
+
+            assertEquals(hex, HexCodec.encodeScalar(value));
+            byte[] bytes = new byte[HexCodec.SCALAR_BYTES];
+            HexCodec.toBytes(value, bytes, 0, HexCodec.SCALAR_BYTES);
+            assertEquals(hex, HexCodec.encode(bytes, 0, bytes.length));
+            assertEquals(value, new BigInteger(1, bytes));
+
+            // the same value without its leading zeros, with a prefix and in upper case
+            String stripped = value.toString(16);
+            for (String input : new String[]{hex, stripped, "0x" + stripped, "0X" + hex.toUpperCase(), stripped.toUpperCase()}) {
+                byte[] decoded = new byte[HexCodec.SCALAR_BYTES + 2];
+                HexCodec.decode(input, decoded, 1, HexCodec.SCALAR_BYTES);
+                assertArrayEquals(input, bytes, Arrays.copyOfRange(decoded, 1, 1 + HexCodec.SCALAR_BYTES));
+            }
+            byte[] ascii = ("??" + stripped).getBytes(StandardCharsets.US_ASCII);
+            byte[] decoded = new byte[HexCodec.SCALAR_BYTES];
+            HexCodec.decode(ascii, 2, stripped.length(), decoded, 0, HexCodec.SCALAR_BYTES);
+            assertArrayEquals(stripped, bytes, decoded);
+        }
+    }
+
+    @Test
+    public void decodesPointsAndVariableLengthHex() {
+        byte[] point = new byte[HexCodec.POINT_BYTES + 1];
+        HexCodec.decodePoint("0x1", "ff", point, 1);
+        byte[] expected = new byte[HexCodec.POINT_BYTES + 1];
+        expected[HexCodec.SCALAR_BYTES] = 1;
+        expected[HexCodec.POINT_BYTES] = (byte) 0xFF;
+        assertArrayEquals(expected, point);
+
+        assertArrayEquals(new byte[0], HexCodec.decode(""));
+        assertArrayEquals(new byte[0], HexCodec.decode("0x"));
+        assertArrayEquals(new byte[]{0x0a, (byte) 0xbc}, HexCodec.decode("abc"));
+        assertArrayEquals(new byte[]{0x00, 0x0f}, HexCodec.decode("000F"));
+        assertArrayEquals(new byte[]{0x0a, (byte) 0xbc}, HexCodec.decode("abc".getBytes(StandardCharsets.US_ASCII)));
+
+        byte[] address = new byte[HexCodec.ADDRESS_BYTES];
+        address[19] = 0x42;
+        assertEquals("0000000000000000000000000000000000000042", HexCodec.encode(address, 0, HexCodec.ADDRESS_BYTES));
+    }
+
+    @Test
+    public void rejectsOverLongAndNonHexInput() {
+        String full = String.format("%064x", BigInteger.ONE);
+        for (String input : new String[]{"0" + full, full + "0", "0x" + full + "1", "12g4", "12 4", "-1", "0x-1", "\u0663", "+f", "0y12"}) {
+            try {
+                HexCodec.decode(input, new byte[HexCodec.SCALAR_BYTES], 0, HexCodec.SCALAR_BYTES);
+                fail("expected " + input + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                byte[] ascii = input.getBytes(StandardCharsets.UTF_8);
+                HexCodec.decode(ascii, 0, ascii.length, new byte[HexCodec.SCALAR_BYTES], 0, HexCodec.SCALAR_BYTES);
+                fail("expected " + input + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        for (BigInteger value : new BigInteger[]{BigInteger.ONE.shiftLeft(256), BigInteger.ONE.negate()}) {
+            try {
+                HexCodec.encodeScalar(value);
+                fail("expected " + value.toString(16) + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+        try {
+            HexCodec.toBytes(BigInteger.valueOf(256), new byte[1], 0, 1);
+            fail("expected 0x100 not to fit a byte");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
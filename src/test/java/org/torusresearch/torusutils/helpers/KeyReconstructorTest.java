@@ -0,0 +1,277 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.torusresearch.torusutils.types.DecryptedShare;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class KeyReconstructorTest {
+    private static final BigInteger N = Secp256k1Scalar.N;
+    private static final int PARALLELISM = 4;
+    private static final ExecutorService workers = Executors.newFixedThreadPool(PARALLELISM);
+
+    @AfterClass
+    public static void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    public void recoversKeyDespiteCorruptedShares() {
+        Random random = new Random(41);
+        for (int nodes : new int[]{5, 9, 13}) {
+            int threshold = nodes / 4 * 2 + 1;
+            for (int corrupted = 0; corrupted <= nodes - threshold; corrupted++) {
+                BigInteger[] polynomial = polynomial(threshold, random);
+                List<DecryptedShare> shares = shares(polynomial, nodes, corrupted, random);
+                String message = nodes + " nodes, " + corrupted + " corrupted";
+
+                assertEquals(message, polynomial[0], reconstructor(polynomial[0], threshold, false).reconstruct(shares));
+                assertEquals(message, polynomial[0], reconstructor(polynomial[0], threshold, true).reconstruct(shares));
+                assertIncremental(message, polynomial, threshold, shares, false);
+                assertIncremental(message, polynomial, threshold, shares, true);
+            }
+        }
+    }
+
+    @Test
+    public void returnsNullWhenTooFewSharesAreGood() {
+        Random random = new Random(42);
+        for (int nodes : new int[]{5, 9, 13}) {
+            int threshold = nodes / 4 * 2 + 1;
+            BigInteger[] polynomial = polynomial(threshold, random);
+            // one good share short of the threshold
+            List<DecryptedShare> shares = shares(polynomial, nodes, nodes - threshold + 1, random);
+            String message = nodes + " nodes";
+
+            assertNull(message, reconstructor(polynomial[0], threshold, false).reconstruct(shares));
+            assertNull(message, reconstructor(polynomial[0], threshold, true).reconstruct(shares));
+            assertNull(message, reconstructor(polynomial[0], threshold, false).reconstruct(shares.subList(0, threshold - 1)));
+            for (boolean parallel : new boolean[]{false, true}) {
+                KeyReconstructor reconstructor = reconstructor(polynomial[0], threshold, parallel);
+                for (DecryptedShare share : shares) {
+                    assertNull(message, reconstructor.add(share));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ignoresSubsetsWithRepeatedIndexes() {
+        Random random = new Random(43);
+        BigInteger[] polynomial = polynomial(3, random);
+        List<DecryptedShare> shares = shares(polynomial, 5, 0, random);
+        DecryptedShare first = shares.get(0);
+        // the same node index three times can never interpolate
+        List<DecryptedShare> repeated = Arrays.asList(first, first, first);
+        assertNull(reconstructor(polynomial[0], 3, false).reconstruct(repeated));
+        assertNull(KeyReconstructor.lagrangeInterpolation(
+                new BigInteger[]{first.getValue(), first.getValue(), shares.get(1).getValue()},
+                new BigInteger[]{first.getIndex(), first.getIndex(), shares.get(1).getIndex()}));
+    }
+
+    @Test
+    public void combinationsVisitEverySubsetInRevolvingDoorOrder() {
+        for (int n = 0; n <= 14; n++) {
+            for (int k = 0; k <= n; k++) {
+                Combinations combinations = new Combinations(n, k);
+                Set<List<Integer>> seen = new HashSet<>();
+                List<Integer> previous = null;
+                int largest = -1;
+                while (combinations.next()) {
+                    int[] current = combinations.current();
+                    assertEquals(k, current.length);
+                    List<Integer> subset = new ArrayList<>();
+                    for (int i = 0; i < k; i++) {
+                        assertTrue(current[i] >= 0 && current[i] < n);
+                        assertTrue(i == 0 || current[i - 1] < current[i]);
+                        subset.add(current[i]);
+                    }
+                    String message = "n = " + n + ", k = " + k + ", " + subset;
+                    assertTrue(message, seen.add(subset));
+                    if (previous != null) {
+                        // one element exchanged for another
+                        List<Integer> removed = new ArrayList<>(previous);
+                        removed.removeAll(subset);
+                        List<Integer> added = new ArrayList<>(subset);
+                        added.removeAll(previous);
+                        assertEquals(message, 1, removed.size());
+                        assertEquals(message, 1, added.size());
+                    }
+                    // subsets sharing their largest element are contiguous, in increasing order of it
+                    if (k > 0) {
+                        assertTrue(message, current[k - 1] >= largest);
+                        largest = current[k - 1];
+                    }
+                    previous = subset;
+                }
+                assertEquals("n = " + n + ", k = " + k, binomial(n, k), seen.size());
+                assertFalse(combinations.next());
+            }
+        }
+        assertFalse(new Combinations(3, 4).next());
+        assertFalse(new Combinations(3, -1).next());
+    }
+
+    @Test
+    public void coefficientsMatchBigIntegerFormula() {
+        Random random = new Random(44);
+        LagrangeCoefficientCache cache = new LagrangeCoefficientCache(LagrangeCoefficientCache.DEFAULT_MAX_ENTRIES);
+        for (int round = 0; round < 500; round++) {
+            // small indexes through the bitmask cache
+            long mask = 0;
+            int size = 1 + random.nextInt(13);
+            while (Long.bitCount(mask) < size) {
+                mask |= 1L << (1 + random.nextInt(63));
+            }
+            BigInteger[] indexes = new BigInteger[size];
+            int i = 0;
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                indexes[i++] = BigInteger.valueOf(Long.numberOfTrailingZeros(rest));
+            }
+            assertCoefficients(indexes, cache.coefficients(mask));
+            assertCoefficients(indexes, cache.coefficients(mask));
+
+            // arbitrary scalar indexes, computed directly
+            BigInteger[] large = new BigInteger[size];
+            int[][] limbs = new int[size][];
+            for (int j = 0; j < size; j++) {
+                large[j] = j % 2 == 0 ? new BigInteger(256, random).mod(N) : BigInteger.valueOf(64 + random.nextInt(1000) * 13 + j);
+                limbs[j] = Secp256k1Scalar.fromBigInteger(large[j]);
+            }
+            assertCoefficients(large, LagrangeCoefficientCache.compute(limbs));
+        }
+    }
+
+    @Test
+    public void interpolationMatchesBigIntegerFormula() {
+        Random random = new Random(45);
+        LagrangeCoefficientCache shared = LagrangeCoefficientCache.getInstance();
+        try {
+            for (LagrangeCoefficientCache cache : new LagrangeCoefficientCache[]{shared, null}) {
+                LagrangeCoefficientCache.setInstance(cache);
+                for (int round = 0; round < 200; round++) {
+                    int size = 1 + random.nextInt(9);
+                    BigInteger[] shares = new BigInteger[size];
+                    BigInteger[] indexes = new BigInteger[size];
+                    // small indexes use the cache, large ones are computed per subset
+                    boolean small = round % 2 == 0;
+                    Set<BigInteger> used = new HashSet<>();
+                    for (int i = 0; i < size; i++) {
+                        shares[i] = new BigInteger(256, random).mod(N);
+                        do {
+                            indexes[i] = small ? BigInteger.valueOf(1 + random.nextInt(63)) : new BigInteger(256, random).mod(N);
+                        } while (!used.add(indexes[i]));
+                    }
+                    assertEquals(oldLagrangeInterpolation(shares, indexes), KeyReconstructor.lagrangeInterpolation(shares, indexes));
+                }
+            }
+        } finally {
+            LagrangeCoefficientCache.setInstance(shared);
+        }
+    }
+
+    // adds the shares one at a time, expecting the key exactly when the threshold-th good share arrives
+    private static void assertIncremental(String message, BigInteger[] polynomial, int threshold, List<DecryptedShare> shares, boolean parallel) {
+        KeyReconstructor reconstructor = reconstructor(polynomial[0], threshold, parallel);
+        int good = 0;
+        for (DecryptedShare share : shares) {
+            if (evaluate(polynomial, share.getIndex()).equals(share.getValue())) {
+                good++;
+            }
+            BigInteger privateKey = reconstructor.add(share);
+            if (good < threshold) {
+                assertNull(message, privateKey);
+            } else {
+                assertEquals(message, polynomial[0], privateKey);
+                return;
+            }
+        }
+    }
+
+    private static KeyReconstructor reconstructor(BigInteger privateKey, int threshold, boolean parallel) {
+        Secp256k1Point publicKey = Secp256k1Generator.multiply(privateKey);
+        return new KeyReconstructor(threshold, publicKey.getAffineX(), publicKey.getAffineY(), parallel ? workers : null, parallel ? PARALLELISM : 0);
+    }
+
+    private static BigInteger[] polynomial(int threshold, Random random) {
+        BigInteger[] polynomial = new BigInteger[threshold];
+        for (int i = 0; i < threshold; i++) {
+            polynomial[i] = new BigInteger(256, random).mod(N);
+        }
+        return polynomial;
+    }
+
+    // the shares of nodes 1 to n in a random order, with the given number of them off the polynomial
+    private static List<DecryptedShare> shares(BigInteger[] polynomial, int nodes, int corrupted, Random random) {
+        List<DecryptedShare> shares = new ArrayList<>();
+        for (int i = 1; i <= nodes; i++) {
+            BigInteger index = BigInteger.valueOf(i);
+            BigInteger value = evaluate(polynomial, index);
+            if (i <= corrupted) {
+                value = value.add(BigInteger.valueOf(1 + random.nextInt(1000))).mod(N);
+            }
+            shares.add(new DecryptedShare(index, value));
+        }
+        Collections.shuffle(shares, random);
+        return shares;
+    }
+
+    private static BigInteger evaluate(BigInteger[] polynomial, BigInteger x) {
+        BigInteger result = BigInteger.ZERO;
+        for (int i = polynomial.length - 1; i >= 0; i--) {
+            result = result.multiply(x).add(polynomial[i]).mod(N);
+        }
+        return result;
+    }
+
+    private static void assertCoefficients(BigInteger[] indexes, int[][] coefficients) {
+        assertEquals(indexes.length, coefficients.length);
+        for (int i = 0; i < indexes.length; i++) {
+            assertEquals(Arrays.toString(indexes), oldCoefficient(indexes, i), Secp256k1Scalar.toBigInteger(coefficients[i]));
+        }
+    }
+
+    // the BigInteger formula TorusUtils.lagrangeInterpolation used before the scalar arithmetic
+    private static BigInteger oldCoefficient(BigInteger[] nodeIndex, int i) {
+        BigInteger upper = BigInteger.ONE;
+        BigInteger lower = BigInteger.ONE;
+        for (int j = 0; j < nodeIndex.length; j++) {
+            if (i != j) {
+                upper = upper.multiply(nodeIndex[j].negate()).mod(N);
+                lower = lower.multiply(nodeIndex[i].subtract(nodeIndex[j]).mod(N)).mod(N);
+            }
+        }
+        return upper.multiply(lower.modInverse(N)).mod(N);
+    }
+
+    private static BigInteger oldLagrangeInterpolation(BigInteger[] shares, BigInteger[] nodeIndex) {
+        BigInteger secret = BigInteger.ZERO;
+        for (int i = 0; i < shares.length; i++) {
+            secret = secret.add(oldCoefficient(nodeIndex, i).multiply(shares[i]).mod(N));
+        }
+        return secret.mod(N);
+    }
+
+    private static long binomial(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+}
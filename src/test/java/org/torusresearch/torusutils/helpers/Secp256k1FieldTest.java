@@ -0,0 +1,125 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Secp256k1FieldTest {
+    private static final BigInteger P = Secp256k1Field.P;
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+
+    @Test
+    public void reducesOnConversion() {
+        for (BigInteger x : edgeValues()) {
+            assertEquals(x.toString(16), x.mod(P), Secp256k1Field.toBigInteger(Secp256k1Field.fromBigInteger(x)));
+        }
+        // 2^256 - 1 is above p but still fits the limbs, so only the final subtraction reduces it
+        assertEquals(TWO_256.subtract(BigInteger.ONE).subtract(P),
+                Secp256k1Field.toBigInteger(Secp256k1Field.fromBigInteger(TWO_256.subtract(BigInteger.ONE))));
+        assertEquals(BigInteger.ONE, Secp256k1Field.toBigInteger(Secp256k1Field.fromBigInteger(P.negate().add(BigInteger.ONE))));
+    }
+
+    @Test
+    public void matchesBigIntegerOnEdgeValues() {
+        List<BigInteger> values = edgeValues();
+        for (BigInteger a : values) {
+            for (BigInteger b : values) {
+                check(a, b);
+            }
+        }
+    }
+
+    @Test
+    public void matchesBigIntegerOnRandomValues() {
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) {
+            check(new BigInteger(256, random), new BigInteger(256, random));
+        }
+        // products with long runs of set bits, whose folds carry out of the low half more than once
+        for (int i = 0; i < 5000; i++) {
+            BigInteger a = TWO_256.subtract(BigInteger.ONE).shiftRight(random.nextInt(40)).xor(BigInteger.valueOf(random.nextInt() & 0xFFFF));
+            BigInteger b = P.subtract(BigInteger.valueOf(random.nextInt(1 << 20)));
+            check(a, b);
+        }
+    }
+
+    @Test
+    public void invertsAndRoundTripsBytes() {
+        Random random = new Random(12);
+        int[] z = Secp256k1Field.create();
+        int[] tt = Secp256k1Field.createExt();
+        byte[] bytes = new byte[40];
+        List<BigInteger> values = edgeValues();
+        for (int i = 0; i < 500; i++) {
+            values.add(new BigInteger(256, random).mod(P));
+        }
+        for (BigInteger v : values) {
+            BigInteger a = v.mod(P);
+            int[] x = Secp256k1Field.fromBigInteger(a);
+            Secp256k1Field.invert(x, z, tt);
+            BigInteger expected = a.signum() == 0 ? BigInteger.ZERO : a.modInverse(P);
+            assertEquals(a.toString(16), expected, Secp256k1Field.toBigInteger(z));
+
+            Secp256k1Field.toBytes(x, bytes, 5);
+            Secp256k1Field.fromBytes(bytes, 5, z);
+            assertArrayEquals(x, z);
+        }
+        Secp256k1Field.squareN(Secp256k1Field.fromBigInteger(P.subtract(BigInteger.valueOf(3))), 7, z, tt);
+        assertEquals(P.subtract(BigInteger.valueOf(3)).modPow(BigInteger.ONE.shiftLeft(7), P), Secp256k1Field.toBigInteger(z));
+    }
+
+    private static void check(BigInteger a, BigInteger b) {
+        int[] x = Secp256k1Field.fromBigInteger(a);
+        int[] y = Secp256k1Field.fromBigInteger(b);
+        int[] z = Secp256k1Field.create();
+        int[] tt = Secp256k1Field.createExt();
+        a = a.mod(P);
+        b = b.mod(P);
+        String message = a.toString(16) + ", " + b.toString(16);
+
+        Secp256k1Field.add(x, y, z);
+        assertEquals(message, a.add(b).mod(P), Secp256k1Field.toBigInteger(z));
+        Secp256k1Field.sub(x, y, z);
+        assertEquals(message, a.subtract(b).mod(P), Secp256k1Field.toBigInteger(z));
+        Secp256k1Field.mul(x, y, z, tt);
+        assertEquals(message, a.multiply(b).mod(P), Secp256k1Field.toBigInteger(z));
+        Secp256k1Field.square(x, z, tt);
+        assertEquals(message, a.multiply(a).mod(P), Secp256k1Field.toBigInteger(z));
+        Secp256k1Field.twice(x, z);
+        assertEquals(message, a.shiftLeft(1).mod(P), Secp256k1Field.toBigInteger(z));
+        Secp256k1Field.negate(x, z);
+        assertEquals(message, a.negate().mod(P), Secp256k1Field.toBigInteger(z));
+        Secp256k1Field.mulSmall(x, b.intValue() & Integer.MAX_VALUE, z);
+        assertEquals(message, a.multiply(BigInteger.valueOf(b.intValue() & Integer.MAX_VALUE)).mod(P), Secp256k1Field.toBigInteger(z));
+        assertEquals(message, a.testBit(0), Secp256k1Field.isOdd(x));
+        assertEquals(message, a.equals(b), Secp256k1Field.equals(x, y));
+
+        // outputs may alias inputs
+        int[] w = x.clone();
+        Secp256k1Field.mul(w, w, w, tt);
+        assertEquals(message, a.multiply(a).mod(P), Secp256k1Field.toBigInteger(w));
+    }
+
+    private static List<BigInteger> edgeValues() {
+        List<BigInteger> values = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            values.add(BigInteger.valueOf(i));
+            values.add(P.subtract(BigInteger.valueOf(i + 1)));
+            values.add(TWO_256.subtract(BigInteger.valueOf(i + 1)));
+        }
+        values.add(BigInteger.valueOf(977));
+        values.add(BigInteger.ONE.shiftLeft(32).add(BigInteger.valueOf(977)));
+        values.add(BigInteger.ONE.shiftLeft(255));
+        values.add(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE));
+        values.add(P.shiftRight(1));
+        values.add(P.shiftRight(1).add(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(224).subtract(BigInteger.ONE).shiftLeft(32));
+        return values;
+    }
+}
@@ -0,0 +1,56 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Sign;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Secp256k1GeneratorTest {
+    private static final BigInteger N = Secp256k1Scalar.N;
+
+    @Test
+    public void matchesWeb3j() {
+        Random random = new Random(13);
+        List<BigInteger> scalars = new ArrayList<>();
+        for (int i = 1; i <= 16; i++) {
+            scalars.add(BigInteger.valueOf(i));
+            scalars.add(N.subtract(BigInteger.valueOf(i)));
+        }
+        // every window digit zero but one, and every window digit 15
+        for (int i = 0; i < 64; i++) {
+            scalars.add(BigInteger.valueOf(1 + random.nextInt(15)).shiftLeft(4 * i).mod(N));
+        }
+        scalars.add(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE).mod(N));
+        for (int i = 0; i < 2000; i++) {
+            scalars.add(new BigInteger(256, random).mod(N));
+        }
+        for (BigInteger k : scalars) {
+            if (k.signum() == 0) {
+                continue;
+            }
+            assertEquals("k = " + k.toString(16), Sign.publicKeyFromPrivate(k), Secp256k1Generator.publicKeyFromPrivate(k));
+        }
+    }
+
+    @Test
+    public void zeroIsInfinity() {
+        assertTrue(Secp256k1Generator.multiply(BigInteger.ZERO).isInfinity());
+        assertTrue(Secp256k1Generator.multiply(N).isInfinity());
+    }
+
+    @Test
+    public void createsMatchingKeyPairs() {
+        for (int i = 0; i < 100; i++) {
+            ECKeyPair keyPair = Secp256k1Generator.createKeyPair();
+            assertTrue(keyPair.getPrivateKey().signum() > 0 && keyPair.getPrivateKey().compareTo(N) < 0);
+            assertEquals(Sign.publicKeyFromPrivate(keyPair.getPrivateKey()), keyPair.getPublicKey());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.security.spec.ECFieldFp;
+import java.security.spec.EllipticCurve;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Secp256k1PointTest {
+    private static final BigInteger N = Secp256k1Scalar.N;
+    private static final BigInteger P = Secp256k1Field.P;
+    private static final BigInteger LAMBDA = new BigInteger("5363AD4CC05C30E0A5261C028812645A122E22EA20816678DF02967C1B23BD72", 16);
+    private static final X9ECParameters CURVE = CustomNamedCurves.getByName("secp256k1");
+    private static final EllipticCurve SECP256K1 = new EllipticCurve(new ECFieldFp(P), BigInteger.ZERO, BigInteger.valueOf(7));
+
+    @Test
+    public void splitScalarHalvesRecombine() {
+        Random random = new Random(31);
+        List<BigInteger> scalars = edgeScalars(random);
+        for (int i = 0; i < 20000; i++) {
+            scalars.add(new BigInteger(256, random).mod(N));
+        }
+        int widest = 0;
+        for (BigInteger scalar : scalars) {
+            // multiply reduces k before splitting it
+            BigInteger k = scalar.mod(N);
+            BigInteger[] split = Secp256k1Point.splitScalar(k);
+            assertEquals(k.toString(16), k, split[0].add(split[1].multiply(LAMBDA)).mod(N));
+            assertTrue(k.toString(16), split[0].bitLength() <= 129 && split[1].bitLength() <= 129);
+            widest = Math.max(widest, Math.max(split[0].bitLength(), split[1].bitLength()));
+        }
+        assertTrue(widest >= 128);
+    }
+
+    @Test
+    public void wnafDigitsRecombine() {
+        Random random = new Random(32);
+        for (int i = 0; i < 2000; i++) {
+            BigInteger k = new BigInteger(1 + random.nextInt(256), random);
+            byte[] naf = Secp256k1Point.wnaf(k, Secp256k1Point.WINDOW);
+            BigInteger sum = BigInteger.ZERO;
+            int lastNonZero = -Secp256k1Point.WINDOW;
+            for (int j = 0; j < naf.length; j++) {
+                if (naf[j] != 0) {
+                    assertTrue((naf[j] & 1) != 0 && Math.abs(naf[j]) < 1 << (Secp256k1Point.WINDOW - 1));
+                    assertTrue(j - lastNonZero >= Secp256k1Point.WINDOW);
+                    lastNonZero = j;
+                }
+                sum = sum.add(BigInteger.valueOf(naf[j]).shiftLeft(j));
+            }
+            assertEquals(k, sum);
+        }
+    }
+
+    @Test
+    public void multiplyMatchesBouncyCastle() {
+        Random random = new Random(33);
+        ECPoint base = CURVE.getG().multiply(new BigInteger(256, random).mod(N)).normalize();
+        Secp256k1Point point = Secp256k1Point.fromAffine(base.getAffineXCoord().toBigInteger(), base.getAffineYCoord().toBigInteger());
+        // the same point with a non-trivial Jacobian z, (x * z^2, y * z^3, z)
+        BigInteger z = new BigInteger(256, random).mod(P);
+        Secp256k1Point scaled = new Secp256k1Point(
+                Secp256k1Field.fromBigInteger(base.getAffineXCoord().toBigInteger().multiply(z.pow(2))),
+                Secp256k1Field.fromBigInteger(base.getAffineYCoord().toBigInteger().multiply(z.pow(3))),
+                Secp256k1Field.fromBigInteger(z));
+
+        for (BigInteger k : edgeScalars(random)) {
+            ECPoint expected = base.multiply(k.mod(N)).normalize();
+            assertMatches(k, expected, point.multiply(k));
+            assertMatches(k, expected, scaled.multiply(k));
+            assertMatches(k, CURVE.getG().multiply(k.mod(N)).normalize(), Secp256k1Point.generator().multiply(k));
+        }
+        assertTrue(Secp256k1Point.infinity().multiply(BigInteger.TEN).isInfinity());
+    }
+
+    @Test
+    public void projectiveMultiplyRoundTripsThroughJacobian() {
+        Random random = new Random(34);
+        ECPoint base = CURVE.getG().multiply(new BigInteger(256, random).mod(N)).normalize();
+        BigInteger x = base.getAffineXCoord().toBigInteger();
+        BigInteger y = base.getAffineYCoord().toBigInteger();
+        BigInteger z = new BigInteger(256, random).mod(P);
+        ECPointArithmetic affine = new ECPointArithmetic(SECP256K1, x, y, null);
+        // projective (x * z, y * z, z)
+        ECPointArithmetic projective = new ECPointArithmetic(SECP256K1, x.multiply(z), y.multiply(z), z);
+        assertTrue(affine.pointEquals(projective));
+
+        for (BigInteger k : edgeScalars(random)) {
+            ECPoint expected = base.multiply(k.mod(N)).normalize();
+            for (ECPointArithmetic p : new ECPointArithmetic[]{affine, projective}) {
+                ECPointArithmetic r = p.multiply(k);
+                if (expected.isInfinity()) {
+                    assertTrue(k.toString(16), r.isInfinity());
+                    continue;
+                }
+                assertEquals(k.toString(16), expected.getAffineXCoord().toBigInteger(), r.getX());
+                assertEquals(k.toString(16), expected.getAffineYCoord().toBigInteger(), r.getY());
+                // the result is projective again, so the add and twice formulas accept it
+                assertTrue(r.add(p).pointEquals(p.multiply(k.add(BigInteger.ONE))));
+                assertTrue(r.twice().pointEquals(p.multiply(k.shiftLeft(1))));
+            }
+        }
+        assertTrue(new ECPointArithmetic(SECP256K1, BigInteger.ZERO, BigInteger.ZERO, null).multiply(BigInteger.TEN).isInfinity());
+    }
+
+    private static void assertMatches(BigInteger k, ECPoint expected, Secp256k1Point actual) {
+        if (expected.isInfinity()) {
+            assertTrue(k.toString(16), actual.isInfinity());
+            return;
+        }
+        assertEquals(k.toString(16), expected.getAffineXCoord().toBigInteger(), actual.getAffineX());
+        assertEquals(k.toString(16), expected.getAffineYCoord().toBigInteger(), actual.getAffineY());
+    }
+
+    // 0, 1, n - 1, n - lambda, scalars outside [0, n), and scalars with a GLV half of 128 bits
+    private static List<BigInteger> edgeScalars(Random random) {
+        List<BigInteger> scalars = new ArrayList<>();
+        scalars.add(BigInteger.ZERO);
+        scalars.add(BigInteger.ONE);
+        scalars.add(BigInteger.valueOf(2));
+        scalars.add(N.subtract(BigInteger.ONE));
+        scalars.add(N.subtract(BigInteger.valueOf(2)));
+        scalars.add(N.subtract(LAMBDA));
+        scalars.add(LAMBDA);
+        scalars.add(N);
+        scalars.add(N.add(BigInteger.ONE));
+        scalars.add(BigInteger.ONE.negate());
+        scalars.add(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE));
+        scalars.add(BigInteger.ONE.shiftLeft(128));
+        scalars.add(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE).multiply(LAMBDA).mod(N));
+        int wide = 0;
+        while (wide < 16) {
+            BigInteger k = new BigInteger(256, random).mod(N);
+            BigInteger[] split = Secp256k1Point.splitScalar(k);
+            if (split[0].bitLength() >= 128 || split[1].bitLength() >= 128) {
+                scalars.add(k);
+                wide++;
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            scalars.add(new BigInteger(256, random));
+        }
+        return scalars;
+    }
+}
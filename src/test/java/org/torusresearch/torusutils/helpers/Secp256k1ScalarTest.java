@@ -0,0 +1,104 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class Secp256k1ScalarTest {
+    private static final BigInteger N = Secp256k1Scalar.N;
+    private static final BigInteger TWO_256 = BigInteger.ONE.shiftLeft(256);
+
+    @Test
+    public void reducesOnConversion() {
+        for (BigInteger x : edgeValues()) {
+            assertEquals(x.toString(16), x.mod(N), Secp256k1Scalar.toBigInteger(Secp256k1Scalar.fromBigInteger(x)));
+        }
+        assertEquals(N.subtract(BigInteger.ONE), Secp256k1Scalar.toBigInteger(Secp256k1Scalar.fromBigInteger(BigInteger.ONE.negate())));
+    }
+
+    @Test
+    public void matchesBigIntegerOnEdgeValues() {
+        List<BigInteger> values = edgeValues();
+        for (BigInteger a : values) {
+            for (BigInteger b : values) {
+                check(a, b);
+            }
+        }
+    }
+
+    @Test
+    public void matchesBigIntegerOnRandomValues() {
+        Random random = new Random(21);
+        for (int i = 0; i < 5000; i++) {
+            check(new BigInteger(256, random), new BigInteger(256, random));
+        }
+        // operands just below n, whose products fold back into the high half
+        for (int i = 0; i < 5000; i++) {
+            check(N.subtract(new BigInteger(1 + random.nextInt(140), random)), N.subtract(new BigInteger(1 + random.nextInt(140), random)));
+        }
+    }
+
+    @Test
+    public void inverts() {
+        Random random = new Random(22);
+        int[] z = new int[8];
+        List<BigInteger> values = edgeValues();
+        for (int i = 0; i < 500; i++) {
+            values.add(new BigInteger(256, random));
+        }
+        for (BigInteger v : values) {
+            BigInteger a = v.mod(N);
+            Secp256k1Scalar.invert(Secp256k1Scalar.fromBigInteger(a), z);
+            assertEquals(a.toString(16), a.signum() == 0 ? BigInteger.ZERO : a.modInverse(N), Secp256k1Scalar.toBigInteger(z));
+        }
+    }
+
+    private static void check(BigInteger a, BigInteger b) {
+        int[] x = Secp256k1Scalar.fromBigInteger(a);
+        int[] y = Secp256k1Scalar.fromBigInteger(b);
+        int[] z = new int[8];
+        int[] tt = new int[16];
+        a = a.mod(N);
+        b = b.mod(N);
+        String message = a.toString(16) + ", " + b.toString(16);
+
+        Secp256k1Scalar.add(x, y, z);
+        assertEquals(message, a.add(b).mod(N), Secp256k1Scalar.toBigInteger(z));
+        Secp256k1Scalar.sub(x, y, z);
+        assertEquals(message, a.subtract(b).mod(N), Secp256k1Scalar.toBigInteger(z));
+        Secp256k1Scalar.mul(x, y, z, tt);
+        assertEquals(message, a.multiply(b).mod(N), Secp256k1Scalar.toBigInteger(z));
+        Secp256k1Scalar.square(x, z, tt);
+        assertEquals(message, a.multiply(a).mod(N), Secp256k1Scalar.toBigInteger(z));
+        Secp256k1Scalar.negate(x, z);
+        assertEquals(message, a.negate().mod(N), Secp256k1Scalar.toBigInteger(z));
+        assertEquals(message, a.signum() == 0, Secp256k1Scalar.isZero(x));
+
+        // outputs may alias inputs
+        int[] w = x.clone();
+        Secp256k1Scalar.mul(w, y, w, tt);
+        assertEquals(message, a.multiply(b).mod(N), Secp256k1Scalar.toBigInteger(w));
+    }
+
+    private static List<BigInteger> edgeValues() {
+        List<BigInteger> values = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            values.add(BigInteger.valueOf(i));
+            values.add(N.subtract(BigInteger.valueOf(i + 1)));
+            values.add(N.add(BigInteger.valueOf(i)));
+            values.add(TWO_256.subtract(BigInteger.valueOf(i + 1)));
+        }
+        values.add(TWO_256.subtract(N));
+        values.add(BigInteger.ONE.shiftLeft(255));
+        values.add(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE));
+        values.add(N.shiftRight(1));
+        values.add(N.shiftRight(1).add(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(224).subtract(BigInteger.ONE).shiftLeft(32));
+        return values;
+    }
+}
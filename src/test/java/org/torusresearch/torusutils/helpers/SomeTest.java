@@ -0,0 +1,209 @@
+package org.torusresearch.torusutils.helpers;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SomeTest {
+    private static final int ROUNDS = 2000;
+    private static final int PROMISES = 13;
+    private static final int THRESHOLD = 5;
+    private static final ExecutorService completers = Executors.newFixedThreadPool(16);
+
+    @AfterClass
+    public static void shutdown() {
+        completers.shutdownNow();
+    }
+
+    @Test
+    public void quorumCompletesExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            List<CompletableFuture<Integer>> promises = promises(PROMISES);
+            AtomicInteger inFlight = new AtomicInteger(0);
+            AtomicInteger overlaps = new AtomicInteger(0);
+            AtomicInteger passes = new AtomicInteger(0);
+            AtomicInteger callsAfterPass = new AtomicInteger(0);
+            List<Integer> seen = new ArrayList<>();
+            Some<Integer, List<Integer>> some = new Some<>(promises, (index, result) -> {
+                if (inFlight.incrementAndGet() != 1) {
+                    overlaps.incrementAndGet();
+                }
+                try {
+                    if (passes.get() > 0) {
+                        callsAfterPass.incrementAndGet();
+                    }
+                    seen.add(result);
+                    if (seen.size() < THRESHOLD) {
+                        throw new PredicateFailedException("not enough results");
+                    }
+                    passes.incrementAndGet();
+                    return CompletableFuture.completedFuture(new ArrayList<>(seen));
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+            AtomicInteger completions = new AtomicInteger(0);
+            CountDownLatch completed = new CountDownLatch(1);
+            some.getCompletableFuture().whenComplete((result, error) -> {
+                completions.incrementAndGet();
+                completed.countDown();
+            });
+
+            completeConcurrently(promises);
+            List<Integer> result = some.getCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+
+            assertEquals(THRESHOLD, result.size());
+            assertEquals(0, overlaps.get());
+            assertEquals(1, passes.get());
+            assertEquals(0, callsAfterPass.get());
+            assertEquals(1, completions.get());
+        }
+    }
+
+    @Test
+    public void predicateRunsOncePerArrival() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            List<CompletableFuture<Integer>> promises = promises(PROMISES);
+            AtomicIntegerArray callsPerIndex = new AtomicIntegerArray(PROMISES);
+            AtomicInteger mismatches = new AtomicInteger(0);
+            Some<Integer, Integer> some = new Some<>(promises, (index, result) -> {
+                callsPerIndex.incrementAndGet(index);
+                if (result != index) {
+                    mismatches.incrementAndGet();
+                }
+                throw new PredicateFailedException("never enough");
+            });
+
+            completeConcurrently(promises);
+            assertFailsWithin(some.getCompletableFuture());
+
+            for (int i = 0; i < PROMISES; i++) {
+                assertEquals("calls for index " + i, 1, callsPerIndex.get(i));
+            }
+            assertEquals(0, mismatches.get());
+        }
+    }
+
+    @Test
+    public void failsOnceEveryPromiseFailed() throws Exception {
+        List<CompletableFuture<Integer>> promises = promises(PROMISES);
+        AtomicInteger calls = new AtomicInteger(0);
+        Some<Integer, Integer> some = new Some<>(promises, (index, result) -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(result);
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        for (CompletableFuture<Integer> promise : promises) {
+            completers.execute(() -> {
+                await(start);
+                promise.completeExceptionally(new Exception("node offline"));
+            });
+        }
+        start.countDown();
+
+        assertFailsWithin(some.getCompletableFuture());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void failsOnceEveryResultWasRejected() throws Exception {
+        List<CompletableFuture<Integer>> promises = promises(PROMISES);
+        Some<Integer, Integer> some = new Some<>(promises, (index, result) -> {
+            throw new RejectedResponseException("unusable response");
+        });
+
+        completeConcurrently(promises);
+
+        assertFailsWithin(some.getCompletableFuture());
+    }
+
+    @Test
+    public void failsAsSoonAsQuorumIsUnreachable() throws Exception {
+        List<CompletableFuture<Integer>> promises = promises(PROMISES);
+        int maxFaults = PROMISES - THRESHOLD;
+        Some<Integer, Integer> some = new Some<>(promises, new QuorumPolicy(THRESHOLD, maxFaults), (index, result) -> {
+            if (result % 2 == 0) {
+                throw new RejectedResponseException("unusable response");
+            }
+            throw new PredicateFailedException("not enough results");
+        });
+
+        // one more fault than tolerated, half of them failed promises and half rejected results
+        for (int i = 0; i <= maxFaults; i++) {
+            if (i % 2 == 0) {
+                promises.get(i).complete(2 * i);
+            } else {
+                promises.get(i).completeExceptionally(new Exception("node offline"));
+            }
+        }
+
+        assertFailsWithin(some.getCompletableFuture());
+        // the promises still outstanding are cancelled rather than waited for, by a callback that may still be running
+        for (int i = maxFaults + 1; i < PROMISES; i++) {
+            assertTrue(awaitCancelled(promises.get(i)));
+        }
+    }
+
+    private static List<CompletableFuture<Integer>> promises(int count) {
+        List<CompletableFuture<Integer>> promises = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            promises.add(new CompletableFuture<>());
+        }
+        return promises;
+    }
+
+    // completes promise i with i, all of them released at once from different threads
+    private static void completeConcurrently(List<CompletableFuture<Integer>> promises) {
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < promises.size(); i++) {
+            int index = i;
+            completers.execute(() -> {
+                await(start);
+                promises.get(index).complete(index);
+            });
+        }
+        start.countDown();
+    }
+
+    private static void assertFailsWithin(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("expected Some to fail");
+        } catch (ExecutionException e) {
+            assertFalse(future.isCancelled());
+        }
+    }
+
+    private static boolean awaitCancelled(CompletableFuture<?> future) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!future.isCancelled() && System.nanoTime() - deadline < 0) {
+            Thread.sleep(1);
+        }
+        return future.isCancelled();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}